@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.fusesource.mvnplugins.uberize;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import org.fusesource.mvnplugins.uberize.filter.SimpleFilter;
+import org.fusesource.mvnplugins.uberize.relocation.Relocator;
+import org.fusesource.mvnplugins.uberize.relocation.RelocatorIndex;
+import org.fusesource.mvnplugins.uberize.relocation.SimpleRelocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures looking up the relocation and the filtering of a batch of entry
+ * paths, like the ones of the {@link SyntheticJars}.
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LookupBenchmark {
+
+    @Param("10000")
+    public int paths;
+
+    @Param("8")
+    public int patterns;
+
+    private String[] entryPaths;
+    private ArrayList<Relocator> relocators;
+    private RelocatorIndex index;
+    private SimpleFilter filter;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Half of the paths are in the relocated packages.
+        entryPaths = new String[paths];
+        for (int i = 0; i < paths; i++) {
+            String root = i % 2 == 0 ? SyntheticJars.PACKAGE + "/jar" + (i % patterns) : "org/other/jar" + (i % patterns);
+            entryPaths[i] = root + "/p" + (i % 16) + "/Class" + i + ".class";
+        }
+
+        relocators = new ArrayList<Relocator>();
+        HashSet<String> includes = new HashSet<String>();
+        HashSet<String> excludes = new HashSet<String>();
+        for (int i = 0; i < patterns; i++) {
+            String pattern = SyntheticJars.PACKAGE + "/jar" + i;
+            relocators.add(new SimpleRelocator(pattern, "shaded/" + pattern,
+                    Arrays.asList(new String[] {pattern.replace('/', '.') + ".p0.*"})));
+            includes.add(pattern + "/**");
+            excludes.add(pattern + "/p1/**");
+        }
+        index = new RelocatorIndex(relocators);
+        filter = new SimpleFilter(new File("synthetic.jar"), includes, excludes);
+    }
+
+    /**
+     * Tries each relocator in turn, like the class shader used to.
+     */
+    @Benchmark
+    public void simpleRelocators(Blackhole blackhole) {
+        for (String path : entryPaths) {
+            String rc = path;
+            for (Relocator relocator : relocators) {
+                if( relocator.canRelocatePath(path) ) {
+                    rc = relocator.relocatePath(path);
+                    break;
+                }
+            }
+            blackhole.consume(rc);
+        }
+    }
+
+    @Benchmark
+    public void relocatorIndex(Blackhole blackhole) {
+        for (String path : entryPaths) {
+            blackhole.consume(index.relocatePath(path));
+        }
+    }
+
+    @Benchmark
+    public void simpleFilter(Blackhole blackhole) {
+        for (String path : entryPaths) {
+            blackhole.consume(filter.isFiltered(path));
+        }
+    }
+
+}
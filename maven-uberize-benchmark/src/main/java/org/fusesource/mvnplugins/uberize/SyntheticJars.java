@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.fusesource.mvnplugins.uberize;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.codehaus.plexus.util.IOUtil;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Generates a set of jars for the benchmarks to uberize.
+ * <p>
+ * Each jar holds <code>entriesPerJar</code> classes of roughly <code>classSize</code>
+ * bytes under <code>com/synth</code>.  Every class references the class generated
+ * before it so that relocating them has something to remap.  The first
+ * <code>overlapRatio</code> of the classes have the same path in all the jars.
+ * Each jar also holds a <code>META-INF/services</code> file and a <code>beans.xml</code>
+ * resource referencing it's classes.
+ * </p>
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+public class SyntheticJars {
+
+    public static final String PACKAGE = "com/synth";
+    public static final String SERVICES_PATH = "META-INF/services/com.synth.Service";
+
+    private static final int PACKAGES = 16;
+
+    private final int jarCount;
+    private final int entriesPerJar;
+    private final double overlapRatio;
+    private final int classSize;
+
+    public SyntheticJars(int jarCount, int entriesPerJar, double overlapRatio, int classSize) {
+        this.jarCount = jarCount;
+        this.entriesPerJar = entriesPerJar;
+        this.overlapRatio = overlapRatio;
+        this.classSize = classSize;
+    }
+
+    /**
+     * @param dir
+     * @return the generated jars.
+     * @throws IOException
+     */
+    public List<File> generate(File dir) throws IOException {
+        dir.mkdirs();
+        int shared = (int) Math.round(entriesPerJar * overlapRatio);
+        char[] padding = new char[Math.max(0, Math.min(classSize - 256, 60000))];
+        Arrays.fill(padding, 'x');
+        String constant = new String(padding);
+
+        ArrayList<File> rc = new ArrayList<File>();
+        for (int j = 0; j < jarCount; j++) {
+            File file = new File(dir, "synthetic-" + j + ".jar");
+            JarOutputStream out = new JarOutputStream(new FileOutputStream(file));
+            try {
+                StringBuilder beans = new StringBuilder("<beans>\n");
+                String previous = null;
+                for (int k = 0; k < entriesPerJar; k++) {
+                    String name = k < shared
+                            ? PACKAGE + "/common/p" + (k % PACKAGES) + "/Shared" + k
+                            : PACKAGE + "/jar" + j + "/p" + (k % PACKAGES) + "/Class" + k;
+                    out.putNextEntry(new ZipEntry(name + ".class"));
+                    out.write(generateClass(name, previous, constant));
+                    out.closeEntry();
+                    beans.append("  <bean class=\"").append(name.replace('/', '.')).append("\"/>\n");
+                    previous = name;
+                }
+                beans.append("</beans>\n");
+
+                out.putNextEntry(new ZipEntry(PACKAGE + "/jar" + j + "/beans.xml"));
+                out.write(beans.toString().getBytes("UTF-8"));
+                out.closeEntry();
+
+                out.putNextEntry(new ZipEntry(SERVICES_PATH));
+                out.write(((previous == null ? "" : previous.replace('/', '.')) + "\n").getBytes("UTF-8"));
+                out.closeEntry();
+            } finally {
+                IOUtil.close(out);
+            }
+            rc.add(file);
+        }
+        return rc;
+    }
+
+    static byte[] generateClass(String name, String reference, String constant) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+        if( reference != null ) {
+            cw.visitField(Opcodes.ACC_PRIVATE, "reference", "L" + reference + ";", null, null).visitEnd();
+        }
+
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V");
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        // Pads the class to the requested size.
+        mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "describe", "()Ljava/lang/String;", null, null);
+        mv.visitCode();
+        mv.visitLdcInsn(constant);
+        mv.visitInsn(Opcodes.ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        if( reference != null ) {
+            mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "getReference", "()L" + reference + ";", null, null);
+            mv.visitCode();
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitFieldInsn(Opcodes.GETFIELD, name, "reference", "L" + reference + ";");
+            mv.visitInsn(Opcodes.ARETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+}
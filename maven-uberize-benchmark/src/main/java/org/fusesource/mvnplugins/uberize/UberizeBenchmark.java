@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.fusesource.mvnplugins.uberize;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.codehaus.plexus.util.FileUtils;
+import org.fusesource.mvnplugins.uberize.filter.Filter;
+import org.fusesource.mvnplugins.uberize.relocation.PackageRelocation;
+import org.fusesource.mvnplugins.uberize.transformer.ClassShader;
+import org.fusesource.mvnplugins.uberize.transformer.Resources;
+import org.fusesource.mvnplugins.uberize.transformer.ServicesAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures uberizing a set of {@link SyntheticJars} end to end, and the
+ * extraction, class relocation and jar writing stages on their own.
+ * <p>
+ * Build the benchmarks with <code>mvn -Pbenchmark install</code> and run them with
+ * <code>java -jar maven-uberize-benchmark/target/benchmarks.jar</code>.  The shape
+ * of the jars can be changed with the JMH parameters, for example
+ * <code>-p jarCount=100 -p overlapRatio=0.5</code>.
+ * </p>
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UberizeBenchmark {
+
+    @Param("20")
+    public int jarCount;
+
+    @Param("500")
+    public int entriesPerJar;
+
+    @Param("0.1")
+    public double overlapRatio;
+
+    @Param("2048")
+    public int classSize;
+
+    @Param("0")
+    public int threads;
+
+    @Param("false")
+    public boolean streaming;
+
+    private File dir;
+    private LinkedHashSet<File> jars;
+    private ArrayList<SourceJar> sourceJars;
+    private TreeMap<String, UberEntry> tree;
+    private DefaultUberizer uberizer;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = new File(System.getProperty("java.io.tmpdir"), "uberize-benchmark-" + System.nanoTime());
+        jars = new LinkedHashSet<File>(new SyntheticJars(jarCount, entriesPerJar, overlapRatio, classSize).generate(new File(dir, "jars")));
+
+        uberizer = new DefaultUberizer();
+        uberizer.enableLogging(new ConsoleLogger(Logger.LEVEL_ERROR, "uberizer"));
+        uberizer.setThreads(threads);
+        uberizer.setStreaming(streaming);
+
+        int count = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        executor = Executors.newFixedThreadPool(count);
+        // So that the stages run on their own, like relocate, are concurrent too.
+        uberizer.setExecutor(executor);
+
+        // The tree the isolated stages work on, it streams the entries from the jars.
+        sourceJars = new ArrayList<SourceJar>();
+        tree = new TreeMap<String, UberEntry>();
+        for (File jar : jars) {
+            SourceJar sourceJar = new SourceJar(jar, jar.getName(), new File(dir, "tree/" + jar.getName()));
+            sourceJars.add(sourceJar);
+            for (CentralDirectory.Record record : sourceJar.getCentralDirectory().getRecords()) {
+                if( record.name.endsWith("/") ) {
+                    continue;
+                }
+                UberEntry entry = tree.get(record.name);
+                if( entry == null ) {
+                    entry = new UberEntry(record.name);
+                    tree.put(record.name, entry);
+                }
+                entry.getSources().add(new JarEntrySource(sourceJar, record.name));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        for (SourceJar sourceJar : sourceJars) {
+            sourceJar.close();
+        }
+        executor.shutdownNow();
+        FileUtils.deleteDirectory(dir);
+    }
+
+    private List<Transformer> transformers() {
+        ArrayList<Transformer> rc = new ArrayList<Transformer>();
+        rc.add(new ServicesAppender());
+        rc.add(shader());
+        return rc;
+    }
+
+    private ClassShader shader() {
+        ClassShader shader = new ClassShader();
+        shader.relocations = new PackageRelocation[] {
+            new PackageRelocation(SyntheticJars.PACKAGE, "shaded/" + SyntheticJars.PACKAGE, null)
+        };
+        shader.resources = new Resources();
+        shader.resources.includes = new HashSet();
+        shader.resources.includes.add(SyntheticJars.PACKAGE + "/**/*.xml");
+        return shader;
+    }
+
+    /**
+     * Builds the uber jar like the mojo does.
+     */
+    @Benchmark
+    public File uberize() throws IOException {
+        File uberJar = new File(dir, "uber.jar");
+        uberizer.uberize(new File(dir, "uberize"), jars, uberJar, new ArrayList<Filter>(), transformers());
+        return uberJar;
+    }
+
+    /**
+     * Reads the central directories of the jars and extracts their entries
+     * to the work directory.
+     */
+    @Benchmark
+    public int extract() throws IOException {
+        File workDir = new File(dir, "extract");
+        FileUtils.deleteDirectory(workDir);
+        int rc = 0;
+        for (File jar : jars) {
+            SourceJar sourceJar = new SourceJar(jar, jar.getName(), new File(workDir, jar.getName()));
+            try {
+                for (CentralDirectory.Record record : sourceJar.getCentralDirectory().getRecords()) {
+                    if( !record.name.endsWith("/") ) {
+                        new JarEntrySource(sourceJar, record.name).extract();
+                        rc++;
+                    }
+                }
+            } finally {
+                sourceJar.close();
+            }
+        }
+        return rc;
+    }
+
+    /**
+     * Starts each relocation with no class relocations and an empty work
+     * directory, so that no invocation reuses the work of the previous one.
+     */
+    @State(Scope.Thread)
+    public static class RelocateWorkDir {
+        File dir;
+
+        @Setup(Level.Invocation)
+        public void reset(UberizeBenchmark benchmark) throws IOException {
+            benchmark.uberizer.getClassRelocations().clear();
+            dir = new File(benchmark.dir, "relocate");
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    /**
+     * Relocates all the classes and the resources which reference them.
+     */
+    @Benchmark
+    public TreeMap<String, UberEntry> relocate(RelocateWorkDir workDir) throws IOException {
+        TreeMap<String, UberEntry> entries = new TreeMap<String, UberEntry>(tree);
+        shader().process(uberizer, workDir.dir, entries);
+        return entries;
+    }
+
+    /**
+     * Writes the entries of the tree into a jar.  The first source of an entry
+     * wins, and all of them get copied without being recompressed.
+     */
+    @Benchmark
+    public File write() throws IOException {
+        File uberJar = new File(dir, "write.jar");
+        int count = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        UberJarWriter writer = new UberJarWriter(uberJar, executor, count * 4);
+        try {
+            for (Map.Entry<String, UberEntry> entry : tree.entrySet()) {
+                writer.putEntry(entry.getKey(), entry.getValue().getSources().get(0));
+            }
+        } finally {
+            writer.close();
+        }
+        return uberJar;
+    }
+
+}
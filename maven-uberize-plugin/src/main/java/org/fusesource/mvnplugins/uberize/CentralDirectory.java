@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.fusesource.mvnplugins.uberize;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The parsed central directory of a zip file.  It gives access to the
+ * location and compression details of the entries so that their
+ * compressed data can be read straight out of the memory mapped zip
+ * file or copied verbatim into another zip file.
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+class CentralDirectory {
+
+    static final int LOCAL_HEADER_SIG = 0x04034b50;
+    static final int CENTRAL_HEADER_SIG = 0x02014b50;
+    static final int END_SIG = 0x06054b50;
+    static final int ZIP64_END_SIG = 0x06064b50;
+    static final int ZIP64_LOCATOR_SIG = 0x07064b50;
+
+    static final int LOCAL_HEADER_SIZE = 30;
+    static final int CENTRAL_HEADER_SIZE = 46;
+    static final int END_SIZE = 22;
+
+    static final int FLAG_ENCRYPTED = 0x01;
+    static final int FLAG_DATA_DESCRIPTOR = 0x08;
+    static final int FLAG_UTF8 = 0x0800;
+
+    /**
+     * The details of a single zip entry.
+     */
+    static class Record {
+        String name;
+        int flags;
+        int method;
+        int dosTime;
+        long crc;
+        long compressedSize;
+        long size;
+        long localHeaderOffset;
+
+        /**
+         * @return true if the compressed data of the entry can be copied as is.
+         */
+        boolean isCopyable() {
+            return (flags & FLAG_ENCRYPTED) == 0
+                && (method == 0 || method == 8)
+                && compressedSize != 0xFFFFFFFFL
+                && size != 0xFFFFFFFFL
+                && localHeaderOffset != 0xFFFFFFFFL;
+        }
+    }
+
+    private final HashMap<String, Record> records = new HashMap<String, Record>();
+    private final ArrayList<Record> list = new ArrayList<Record>();
+
+    /**
+     * @param name
+     * @return the record of the named entry or null if it does not exist.
+     */
+    Record get(String name) {
+        return records.get(name);
+    }
+
+    int size() {
+        return records.size();
+    }
+
+    /**
+     * @return the records in the order they are stored in the zip file.
+     */
+    List<Record> getRecords() {
+        return list;
+    }
+
+    /**
+     * @param zip the content of the zip file
+     * @return the parsed central directory
+     * @throws IOException if the central directory is not valid
+     */
+    static CentralDirectory read(ByteBuffer zip) throws IOException {
+        zip = zip.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int length = zip.limit();
+        if( length < END_SIZE ) {
+            throw new IOException("Not a zip file");
+        }
+
+        // The end record is at the end of the file, followed by a comment of up to 64k.
+        int end = -1;
+        for( int i = length - END_SIZE; i >= Math.max(0, length - END_SIZE - 0xFFFF); i-- ) {
+            if( zip.getInt(i) == END_SIG ) {
+                end = i;
+                break;
+            }
+        }
+        if( end < 0 ) {
+            throw new IOException("Zip end of central directory record not found");
+        }
+        long count = getShort(zip, end + 10);
+        long cdSize = getUnsignedInt(zip, end + 12);
+        long cdOffset = getUnsignedInt(zip, end + 16);
+        long cdEnd = end;
+
+        if( (count == 0xFFFF || cdSize == 0xFFFFFFFFL || cdOffset == 0xFFFFFFFFL) && end >= 20 ) {
+            // It may be a zip64 archive, the real values are then in the zip64 end record.
+            if( zip.getInt(end - 20) == ZIP64_LOCATOR_SIG ) {
+                long zip64End = zip.getLong(end - 20 + 8);
+                if( zip64End < 0 || zip64End + 56 > length || zip.getInt((int) zip64End) != ZIP64_END_SIG ) {
+                    throw new IOException("Zip64 end of central directory record not found");
+                }
+                count = zip.getLong((int) zip64End + 32);
+                cdSize = zip.getLong((int) zip64End + 40);
+                cdOffset = zip.getLong((int) zip64End + 48);
+                cdEnd = zip64End;
+            }
+        }
+
+        // Zip files can have data prepended to them (like a launcher script),
+        // in which case all the offsets are relative to the start of the zip data.
+        long delta = cdEnd - cdSize - cdOffset;
+        if( delta < 0 || cdSize < 0 || cdOffset < 0 ) {
+            throw new IOException("Invalid zip central directory");
+        }
+
+        CentralDirectory rc = new CentralDirectory();
+        int pos = (int) (cdOffset + delta);
+        for( long i = 0; i < count; i++ ) {
+            if( pos + CENTRAL_HEADER_SIZE > cdEnd || zip.getInt(pos) != CENTRAL_HEADER_SIG ) {
+                throw new IOException("Invalid zip central directory");
+            }
+            Record record = new Record();
+            record.flags = getShort(zip, pos + 8);
+            record.method = getShort(zip, pos + 10);
+            record.dosTime = zip.getInt(pos + 12);
+            record.crc = getUnsignedInt(zip, pos + 16);
+            record.compressedSize = getUnsignedInt(zip, pos + 20);
+            record.size = getUnsignedInt(zip, pos + 24);
+            int nameLength = getShort(zip, pos + 28);
+            int extraLength = getShort(zip, pos + 30);
+            int commentLength = getShort(zip, pos + 32);
+            record.localHeaderOffset = getUnsignedInt(zip, pos + 42);
+            if( record.localHeaderOffset != 0xFFFFFFFFL ) {
+                record.localHeaderOffset += delta;
+            }
+            if( pos + CENTRAL_HEADER_SIZE + nameLength > cdEnd ) {
+                throw new IOException("Invalid zip central directory");
+            }
+            record.name = decodeName(zip, pos + CENTRAL_HEADER_SIZE, nameLength);
+            pos += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+
+            // Like the JDK, the first entry with a given name wins.
+            if( !rc.records.containsKey(record.name) ) {
+                rc.records.put(record.name, record);
+                rc.list.add(record);
+            }
+        }
+        return rc;
+    }
+
+    private static String decodeName(ByteBuffer zip, int offset, int length) throws UnsupportedEncodingException {
+        byte[] data = new byte[length];
+        for( int i = 0; i < length; i++ ) {
+            data[i] = zip.get(offset + i);
+        }
+        // Most names are ascii, which decode the same in all the charsets.
+        boolean ascii = true;
+        for( int i = 0; i < length; i++ ) {
+            if( data[i] < 0 ) {
+                ascii = false;
+                break;
+            }
+        }
+        if( ascii ) {
+            char[] chars = new char[length];
+            for( int i = 0; i < length; i++ ) {
+                chars[i] = (char) data[i];
+            }
+            return new String(chars);
+        }
+        return new String(data, "UTF-8");
+    }
+
+    static int getShort(ByteBuffer data, int offset) {
+        return data.getShort(offset) & 0xFFFF;
+    }
+
+    static long getUnsignedInt(ByteBuffer data, int offset) {
+        return data.getInt(offset) & 0xFFFFFFFFL;
+    }
+
+}
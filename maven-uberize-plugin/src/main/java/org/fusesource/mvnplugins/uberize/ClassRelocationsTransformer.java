@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.fusesource.mvnplugins.uberize;
+
+/**
+ * A concurrent transformer which also shares the uberizer's
+ * {@link Uberizer#getClassRelocations() class relocations} with the
+ * other transformers.
+ * <p>
+ * On top of the scope checks done for all concurrent transformers, the
+ * uberizer makes it wait for the class relocations transformers declared
+ * before it when either of them updates the class relocations.  Transformers
+ * which only read them still run at the same time.
+ * </p>
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+public interface ClassRelocationsTransformer extends ConcurrentTransformer {
+
+    /**
+     * @return true if the transformer adds class relocations, false if
+     *         it only reads them.
+     */
+    boolean updatesClassRelocations();
+
+}
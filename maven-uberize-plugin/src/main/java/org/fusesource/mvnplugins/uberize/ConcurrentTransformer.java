@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.fusesource.mvnplugins.uberize;
+
+/**
+ * A scoped transformer which only reads, adds, replaces or removes the
+ * entries in it's scope, and does not share any other state with the
+ * other transformers.
+ * <p>
+ * The uberizer runs it at the same time as the other concurrent transformers
+ * whose scopes don't overlap with it's scope.  When the scopes overlap, or
+ * one of them is not a concurrent transformer, the transformer declared
+ * first runs first.  Transformers which use the uberizer's class relocations
+ * must implement {@link ClassRelocationsTransformer} instead.
+ * </p>
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+public interface ConcurrentTransformer extends ScopedTransformer {
+
+}
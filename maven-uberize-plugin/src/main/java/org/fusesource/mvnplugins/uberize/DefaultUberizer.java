@@ -21,6 +21,7 @@ package org.fusesource.mvnplugins.uberize;
 
 import org.fusesource.mvnplugins.uberize.filter.Filter;
 import org.codehaus.plexus.logging.AbstractLogEnabled;
+import org.codehaus.plexus.logging.LogEnabled;
 import org.codehaus.plexus.util.FileUtils;
 import org.codehaus.plexus.util.IOUtil;
 
@@ -28,20 +29,33 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
 import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
-import java.util.jar.JarOutputStream;
 
 /**
  * @author Jason van Zyl
@@ -51,20 +65,52 @@ import java.util.jar.JarOutputStream;
 public class DefaultUberizer extends AbstractLogEnabled implements Uberizer {
     private final HashMap<String, String> classRelocations = new HashMap<String, String>();
     private final HashMap<File, File> extractionMapping = new HashMap<File, File>();
-    private Transformer currentTransformer;
+    // Maps the files transformers generated to the source jar they were generated from.
+    private final ConcurrentHashMap<File, File> generatedFrom = new ConcurrentHashMap<File, File>();
+    private final ArrayList<SourceJar> jars = new ArrayList<SourceJar>();
+    private final ConcurrentHashMap<File, ContentDigest> digests = new ConcurrentHashMap<File, ContentDigest>();
+    // The transformer running on the current thread, or the only transformer running.
+    private final ThreadLocal<TransformerRun> currentTransformer = new ThreadLocal<TransformerRun>();
+    private volatile TransformerRun soleTransformer;
+    // The stage that's not a transformer which is running.
+    private volatile UberizeStats.Stage currentStage;
+    private boolean streaming;
+    private int threads;
+    private ExecutorService executor;
+    private ExecutorService sharedExecutor;
+    private boolean virtualThreads;
+    private boolean incremental;
+    private boolean reporting;
+    private UberizeManifest manifest;
+    private UberizeReport report;
+    private UberizeStats stats;
 
 
     public void uberize(File targetDir, Set sourceJars, File uberJar, List<Filter> filters, List<Transformer> transformers)
             throws IOException {
         classRelocations.clear();
         extractionMapping.clear();
-        currentTransformer=null;
+        generatedFrom.clear();
+        jars.clear();
+        digests.clear();
+        soleTransformer=null;
+        stats = new UberizeStats();
 
         targetDir = targetDir.getCanonicalFile();
         targetDir.mkdirs();
-        FileUtils.cleanDirectory(targetDir);
         final String jarMappingTxt = new File(targetDir, "jar-mapping.txt").getPath();
         final String transformMappingTxt = new File(targetDir, "transformation-mapping.txt").getPath();
+        if( incremental ) {
+            // Keep the work directory around so we can reuse what
+            // the previous run built from the unchanged inputs.
+            manifest = new UberizeManifest(targetDir, uberJar);
+            manifest.load();
+            FileUtils.fileDelete(jarMappingTxt);
+            FileUtils.fileDelete(transformMappingTxt);
+        } else {
+            manifest = null;
+            FileUtils.cleanDirectory(targetDir);
+        }
 
         // A 'jar entry path' => UberEntry map, points to all the data
         // that is in the source sourceJars.
@@ -72,102 +118,436 @@ public class DefaultUberizer extends AbstractLogEnabled implements Uberizer {
 
 
         // Extract each jar to a seperate directory and build up the tree
-        // tree to point to all the extracted files.
-        getLogger().info("Extracting jars...");
-        for (Iterator i = sourceJars.iterator(); i.hasNext();) {
-            File jar = (File) i.next();
-
-            int counter = 1;
-            String id = jar.getName();
-            File workDir = new File(targetDir, id);
-            while (workDir.exists()) {
-                id = jar.getName() + "." + counter++;
-                workDir = new File(targetDir, id);
-            }
-            extractionMapping.put(workDir, jar);
-            FileUtils.fileAppend(jarMappingTxt, id + "=" + jar.getPath() + "\n");
-
-            List jarFilters = getFilters(jar, filters);
-            JarFile jarFile = new JarFile(jar);
-            try {
-                for (Enumeration j = jarFile.entries(); j.hasMoreElements();) {
-                    JarEntry entry = (JarEntry) j.nextElement();
-                    String name = entry.getName();
+        // tree to point to all the extracted files.  When streaming, the
+        // entries are only indexed and get read straight from the jars.
+        getLogger().info(streaming ? "Indexing jars..." : "Extracting jars...");
+        HashSet<String> ids = new HashSet<String>();
+        StringBuilder jarMapping = new StringBuilder();
+        report = reporting ? new UberizeReport() : null;
+        executor = sharedExecutor!=null ? sharedExecutor : createExecutor();
+        final UberizeStats.Stage readStage = startStage(streaming ? "index jars" : "extract jars");
+        try {
+            // The jars are read concurrently, but their entries are added to the
+            // tree in the source jar order so that the first source still wins.
+            ArrayList<Future<List<JarEntrySource>>> futures = new ArrayList<Future<List<JarEntrySource>>>();
+            final ConcurrentHashMap<String, String> paths = new ConcurrentHashMap<String, String>();
+            for (Iterator i = sourceJars.iterator(); i.hasNext();) {
+                File jar = (File) i.next();
+
+                int counter = 1;
+                String id = jar.getName();
+                while (!ids.add(id)) {
+                    id = jar.getName() + "." + counter++;
+                }
+                File workDir = new File(targetDir, id);
+                extractionMapping.put(workDir, jar);
+                jarMapping.append(id).append('=').append(jar.getPath()).append('\n');
 
-                    // Skip over stuff we are filtering out
-                    if (entry.isDirectory() || isFiltered(jarFilters, name)) {
-                        continue;
+                final SourceJar sourceJar = new SourceJar(jar, id, workDir);
+                jars.add(sourceJar);
+
+                final List<Filter> jarFilters = getFilters(jar, filters);
+                futures.add(executor.submit(new Callable<List<JarEntrySource>>() {
+                    public List<JarEntrySource> call() throws Exception {
+                        return readJar(sourceJar, jarFilters, paths, readStage);
+                    }
+                }));
+            }
+            FileUtils.fileWrite(jarMappingTxt, jarMapping.toString());
+            for (Future<List<JarEntrySource>> future : futures) {
+                List<JarEntrySource> sources = get(future);
+                for (JarEntrySource source : sources) {
+                    getNode(tree, source.getEntryName()).getSources().add(source);
+                }
+                readStage.entries(sources.size());
+            }
+            finishStage(readStage, true);
+
+            // The transformers can now inspect the tree modify it's organization
+            // to aid in trouble shooting, the transformer should not modify the extracted
+            // files.  It should instead generate new files in the provided work directory.
+            UberEntryIndex index = new UberEntryIndex(tree);
+            StringBuilder transformMapping = new StringBuilder();
+            for (int i = 0; i < transformers.size(); i++) {
+                transformMapping.append("transformer-").append(i).append('=').append(transformers.get(i).getClass().getName()).append('\n');
+            }
+            FileUtils.fileWrite(transformMappingTxt, transformMapping.toString());
+            transform(targetDir, transformers, tree, index);
+
+            // Cleanup any remaining overlapping entries. First source wins.
+            UberizeStats.Stage pickStage = startStage("pick sources");
+            boolean ok = true;
+            for (UberEntry entry : new ArrayList<UberEntry>(tree.values())) {
+                if( entry.getSources().isEmpty() ) {
+                    // We can dump empty entries..
+                    tree.remove(entry.getPath());
+                } else {
+                    pickOneSource(tree, entry);
+                }
+            }
+            pickStage.entries(tree.size());
+            finishStage(pickStage, false);
+
+            // Generate the uber jar using the transformed tree
+            getLogger().info("Uber jarring...");
+            UberizeStats.Stage writeStage = startStage("write uber jar");
+            uberJar.getParentFile().mkdirs();
+            UberJarWriter writer = new UberJarWriter(uberJar, executor, getThreadCount() * 4);
+            HashSet<String> uberDirectories = new HashSet<String>();
+            try {
+                for (Entry<String, UberEntry> entry : tree.entrySet()) {
+                    final String path = entry.getKey();
+
+                    // Make sure the parent dirs are created in the jar
+                    ArrayList<String> dirs = new ArrayList<String>();
+                    getParentDirs(path, dirs);
+                    for (String dir : dirs) {
+                        if (uberDirectories.add(dir)) {
+                            writer.putDirectory(dir);
+                        }
                     }
 
-                    // Extract the file..
-                    InputStream is = jarFile.getInputStream(entry);
-                    File extracted = writeFile(workDir, name, is);
-                    getNode(tree, name).getSources().add(extracted);
+                    // Write the jar enry from the node's file.  Entries which come unmodified
+                    // from a source jar are copied without getting recompressed, the rest get
+                    // deflated on the thread pool ahead of being written.
+                    File source = entry.getValue().getSources().get(0);
+                    writer.putEntry(path, source);
+                    writeStage.read(sizeOf(source));
                 }
             } finally {
-                jarFile.close();
+                writer.close();
+            }
+            writeStage.entries(tree.size());
+            writeStage.written(uberJar.length());
+            finishStage(writeStage, false);
+            getLogger().debug("Copied "+writer.getRawCopies()+" of "+tree.size()+" entries without recompressing them.");
+            if( report!=null ) {
+                report.write(new File(targetDir, uberJar.getName() + "-report.json"), uberJar, tree, this);
             }
-        }
 
-        // The transformers can now inspect the tree modify it's organization
-        // to aid in trouble shooting, the transformer should not modify the extracted
-        // files.  It should instead generate new files in the provided work directory.
-        int transformerCounter = 0;
-        for (Transformer transformer : transformers) {
-            getLogger().info("Applying transformer: "+transformer.getClass().getName());
-            currentTransformer = transformer;
-            final String id = "transformer-" + (transformerCounter++);
-            File xformWorkDir = new File(targetDir, id);
-            FileUtils.fileAppend(transformMappingTxt, id + "=" + transformer.getClass().getName() + "\n");
-            transformer.process(this, xformWorkDir, tree);
+            if( manifest!=null ) {
+                manifest.store();
+            }
+        } finally {
+            if( executor != sharedExecutor ) {
+                executor.shutdownNow();
+            }
+            executor = null;
+            manifest = null;
+            report = null;
+            currentStage = null;
+            for (SourceJar jar : jars) {
+                jar.close();
+            }
         }
 
-        // Cleanup any remaining overlapping entries. First source wins.
-        boolean ok = true;
-        for (UberEntry entry : new ArrayList<UberEntry>(tree.values())) {
-            if( entry.getSources().isEmpty() ) {
-                // We can dump empty entries..
-                tree.remove(entry.getPath());
-            } else {
-                pickOneSource(tree, entry);
+    }
+
+    /**
+     * Runs the transformers.  A transformer waits for the transformers declared
+     * before it, unless they are all {@link ConcurrentTransformer}s whose scopes
+     * don't overlap with it's scope and which don't share the class relocations
+     * with it.  The tree is only modified from this thread.
+     */
+    private void transform(File targetDir, List<Transformer> transformers, TreeMap<String, UberEntry> tree, UberEntryIndex index) throws IOException {
+        int count = transformers.size();
+        PathScope[] scopes = new PathScope[count];
+        // 0 when the transformer does not use the class relocations, 1 when it
+        // reads them and 2 when it updates them.
+        int[] classRelocations = new int[count];
+        for (int i = 0; i < count; i++) {
+            Transformer transformer = transformers.get(i);
+            if( transformer instanceof ConcurrentTransformer ) {
+                scopes[i] = ((ConcurrentTransformer) transformer).getScope();
+            }
+            if( transformer instanceof ClassRelocationsTransformer ) {
+                classRelocations[i] = ((ClassRelocationsTransformer) transformer).updatesClassRelocations() ? 2 : 1;
             }
         }
+        // The transformers each transformer has to wait for.
+        ArrayList<HashSet<Integer>> dependencies = new ArrayList<HashSet<Integer>>(count);
+        for (int i = 0; i < count; i++) {
+            HashSet<Integer> dependsOn = new HashSet<Integer>();
+            for (int j = 0; j < i; j++) {
+                if( scopes[i]==null || scopes[j]==null || scopes[i].overlaps(scopes[j]) ) {
+                    dependsOn.add(j);
+                } else if( classRelocations[i]!=0 && classRelocations[j]!=0 && (classRelocations[i]==2 || classRelocations[j]==2) ) {
+                    dependsOn.add(j);
+                }
+            }
+            dependencies.add(dependsOn);
+        }
 
-        // Generate the uber jar using the transformed tree
-        getLogger().info("Uber jarring...");
-        uberJar.getParentFile().mkdirs();
-        JarOutputStream jos = new JarOutputStream(new FileOutputStream(uberJar));
-        HashSet<String> uberDirectories = new HashSet<String>();
+        // The transformers get their own threads since they wait on the tasks
+        // they submit to the uberizer's executor.
+        ExecutorService transformerExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+            int counter;
+            public synchronized Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "uberizer-transformer-" + (++counter));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
         try {
-            for (Entry<String, UberEntry> entry : tree.entrySet()) {
-                final String path = entry.getKey();
-
-                // Make sure the parent dirs are created in the jar
-                ArrayList<String> dirs = new ArrayList<String>();
-                getParentDirs(path, dirs);
-                for (String dir : dirs) {
-                    if (uberDirectories.add(dir)) {
-                        jos.putNextEntry(new JarEntry(dir));
+            ExecutorCompletionService<TransformerRun> completion = new ExecutorCompletionService<TransformerRun>(transformerExecutor);
+            boolean[] started = new boolean[count];
+            HashMap<Integer, TransformerRun> running = new HashMap<Integer, TransformerRun>();
+            for (int done = 0; done < count; done++) {
+                for (int i = 0; i < count; i++) {
+                    if( !started[i] && dependencies.get(i).isEmpty() ) {
+                        started[i] = true;
+                        TransformerRun run = startTransformer(targetDir, i, transformers.get(i), scopes[i], tree, index);
+                        running.put(i, run);
+                        completion.submit(run);
                     }
                 }
-
-                // Write the jar enry from the node's file
-                jos.putNextEntry(new JarEntry(path));
-                File file = entry.getValue().getSources().get(0);
-                FileInputStream is = new FileInputStream(file);
+                soleTransformer = running.size()==1 ? running.values().iterator().next() : null;
+                Future<TransformerRun> future;
                 try {
-                    IOUtil.copy(is, jos);
-                } finally {
-                    IOUtil.close(is);
+                    future = completion.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+                TransformerRun run = get(future);
+                running.remove(run.id);
+                String name = run.transformer.getClass().getName();
+                if( run.original != null ) {
+                    if( report!=null ) {
+                        report.transformed(name, run.original, run.entries);
+                    }
+                    countChanges(run, run.original, run.entries);
+                    index.apply(run.original, run.entries);
+                } else {
+                    if( report!=null ) {
+                        report.transformed(name, run.before, tree);
+                    }
+                    countChanges(run, run.before, tree);
+                    index.invalidate();
+                }
+                stats.finish(run.stage, true);
+                for (HashSet<Integer> dependsOn : dependencies) {
+                    dependsOn.remove(run.id);
                 }
-
             }
         } finally {
-            IOUtil.close(jos);
+            soleTransformer = null;
+            transformerExecutor.shutdownNow();
+        }
+    }
+
+    private TransformerRun startTransformer(File targetDir, int id, Transformer transformer, PathScope scope, TreeMap<String, UberEntry> tree, UberEntryIndex index) throws IOException {
+        getLogger().info("Applying transformer: "+transformer.getClass().getName());
+        if( transformer instanceof LogEnabled ) {
+            ((LogEnabled) transformer).enableLogging(getLogger());
+        }
+        File workDir = new File(targetDir, "transformer-" + id);
+        if( manifest!=null && !manifest.updateTransformer("transformer-" + id, transformer) ) {
+            // The files it generated in the previous run can't be trusted anymore.
+            FileUtils.deleteDirectory(workDir);
+        }
+        if( scope==null && transformer instanceof ScopedTransformer ) {
+            scope = ((ScopedTransformer) transformer).getScope();
+        }
+        TransformerRun run = new TransformerRun(id, transformer, workDir);
+        run.stage = stats.stage("transformer-" + id + ": " + transformer.getClass().getSimpleName());
+        if( scope!=null ) {
+            // Only hand it the entries it cares about.
+            run.entries = index.select(scope);
+            run.original = new HashMap<String, UberEntry>(run.entries);
+        } else {
+            // It gets the whole tree, nothing else runs at the same time.
+            run.entries = tree;
+            run.before = new HashMap<String, UberEntry>(tree);
+        }
+        return run;
+    }
+
+    private class TransformerRun implements Callable<TransformerRun> {
+        final int id;
+        final Transformer transformer;
+        final File workDir;
+        TreeMap<String, UberEntry> entries;
+        // The entries selected by the scope of the transformer.
+        HashMap<String, UberEntry> original;
+        // The whole tree before an unscoped transformer ran.
+        HashMap<String, UberEntry> before;
+        UberizeStats.Stage stage;
+
+        TransformerRun(int id, Transformer transformer, File workDir) {
+            this.id = id;
+            this.transformer = transformer;
+            this.workDir = workDir;
+        }
+
+        public TransformerRun call() throws Exception {
+            currentTransformer.set(this);
+            long start = System.nanoTime();
+            try {
+                transformer.process(DefaultUberizer.this, workDir, entries);
+            } finally {
+                stage.time(System.nanoTime() - start);
+                currentTransformer.remove();
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Counts the entries a transformer replaced, removed or added, the data of
+     * the entries it replaced or removed, and the files it generated.
+     */
+    private static void countChanges(TransformerRun run, Map<String, UberEntry> before, Map<String, UberEntry> after) {
+        for (Entry<String, UberEntry> entry : before.entrySet()) {
+            if( after.get(entry.getKey()) != entry.getValue() ) {
+                run.stage.entries(1);
+                for (File source : entry.getValue().getSources()) {
+                    run.stage.read(sizeOf(source));
+                }
+            }
+        }
+        String workDir = run.workDir.getPath() + File.separator;
+        for (UberEntry entry : after.values()) {
+            UberEntry previous = before.get(entry.getPath());
+            if( previous == entry ) {
+                continue;
+            }
+            if( previous == null ) {
+                run.stage.entries(1);
+            }
+            for (File source : entry.getSources()) {
+                if( !(source instanceof JarEntrySource) && source.getPath().startsWith(workDir) ) {
+                    run.stage.written(source.length());
+                }
+            }
         }
+    }
 
+    private UberizeStats.Stage startStage(String name) {
+        UberizeStats.Stage rc = stats.stage(name);
+        rc.time(-System.nanoTime());
+        currentStage = rc;
+        return rc;
     }
 
+    private void finishStage(UberizeStats.Stage stage, boolean toWorkDir) {
+        stage.time(System.nanoTime());
+        stats.finish(stage, toWorkDir);
+        currentStage = null;
+    }
+
+    /**
+     * @return the uncompressed size of the source.
+     */
+    static long sizeOf(File source) {
+        if( source instanceof JarEntrySource ) {
+            return Math.max(0, ((JarEntrySource) source).getSize());
+        }
+        return source.length();
+    }
+
+    /**
+     * @param paths the entry names read so far, so that the jars which contain the same
+     *        entries share a single copy of their names.
+     */
+    private List<JarEntrySource> readJar(SourceJar sourceJar, List<Filter> jarFilters, ConcurrentHashMap<String, String> paths, UberizeStats.Stage stage) throws IOException {
+        ArrayList<JarEntrySource> rc = new ArrayList<JarEntrySource>();
+        boolean reuse = false;
+        if( manifest!=null ) {
+            reuse = manifest.updateJar(sourceJar, !streaming);
+            if( !reuse ) {
+                FileUtils.deleteDirectory(sourceJar.getWorkDir());
+            }
+        }
+        // The entries are listed from the central directory of the memory mapped
+        // jar, unless it can't be mapped.
+        ArrayList<String> names = new ArrayList<String>();
+        ArrayList<Long> sizes = new ArrayList<Long>();
+        CentralDirectory centralDirectory = sourceJar.getCentralDirectory();
+        if( centralDirectory != null ) {
+            for (CentralDirectory.Record record : centralDirectory.getRecords()) {
+                names.add(record.name);
+                sizes.add(record.size);
+            }
+        } else {
+            for (Enumeration j = sourceJar.getJarFile().entries(); j.hasMoreElements();) {
+                JarEntry entry = (JarEntry) j.nextElement();
+                names.add(entry.getName());
+                sizes.add(entry.getSize());
+            }
+        }
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+
+            // Skip over stuff we are filtering out
+            if (name.endsWith("/") || isFiltered(jarFilters, name)) {
+                continue;
+            }
+
+            String existing = paths.putIfAbsent(name, name);
+            if( existing != null ) {
+                name = existing;
+            }
+            stage.read(Math.max(0, sizes.get(i)));
+            JarEntrySource source = new JarEntrySource(sourceJar, name);
+            if( reuse && source.isFile() ) {
+                // The previous run already extracted it.
+                source.reuseExtracted();
+            } else if( !streaming ) {
+                // Extract the file..
+                source.extract();
+                stage.written(source.length());
+            }
+            rc.add(source);
+        }
+        if( !streaming ) {
+            // The mapping is kept until the end of the run, the writer copies raw entry data out of it.
+            sourceJar.closeJarFile();
+        }
+        return rc;
+    }
+
+    public int getThreadCount() {
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    private ExecutorService createExecutor() {
+        int count = getThreadCount();
+        if( virtualThreads ) {
+            ExecutorService rc = createVirtualThreadExecutor();
+            if( rc!=null ) {
+                getLogger().debug("Running the tasks on virtual threads.");
+                return rc;
+            }
+            getLogger().debug("Virtual threads are not supported by this JVM, running the tasks on "+count+" threads.");
+        }
+        return Executors.newFixedThreadPool(count, new ThreadFactory() {
+            int counter;
+            public synchronized Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "uberizer-" + (++counter));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * The source is compiled for older JVMs, so the virtual thread executor
+     * gets looked up reflectively.
+     *
+     * @return an executor which starts a virtual thread per task or null if the
+     *         JVM does not support virtual threads.
+     */
+    static ExecutorService createVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (Exception e) {
+            // Not there before Java 21, or a preview feature which is not enabled.
+            return null;
+        }
+    }
+
+
     public File pickOneSource(TreeMap<String, UberEntry> tree, UberEntry entry) throws IOException {
         if( entry.getSources().isEmpty() ) {
             return null;
@@ -177,26 +557,39 @@ public class DefaultUberizer extends AbstractLogEnabled implements Uberizer {
             LinkedList<File> ignores = new LinkedList<File>(entry.getSources());
             File pick = ignores.removeFirst();
 
-            if( isFileTypeThatCanIgnoreDuplicates( entry.getPath() ) ) {
-                // We can remove it from the list if it's a duplicate of the first...
-                // If all the sources are duplicates, then we avoid logging a warning to the user.
-                for (Iterator<File> i = ignores.iterator(); i.hasNext();) {
-                    File file =  i.next();
-                    if( FileUtils.contentEquals(pick, file) ) {
-                        i.remove();
-                    }
+            TransformerRun run = currentTransformer.get();
+            if( run==null ) {
+                run = soleTransformer;
+            }
+            UberizeStats.Stage stage = run!=null ? run.stage : currentStage;
+            if( stage!=null ) {
+                stage.duplicate();
+            }
+
+            // We can remove it from the list if it's a duplicate of the first...
+            // If all the sources are duplicates, then we avoid logging a warning to the user.
+            boolean canIgnoreDuplicates = isFileTypeThatCanIgnoreDuplicates( entry.getPath() );
+            for (Iterator<File> i = ignores.iterator(); i.hasNext();) {
+                File file =  i.next();
+                // Only compare the contents if something is going to use the result.
+                boolean identical = (canIgnoreDuplicates || report!=null) && contentEquals(pick, file);
+                if( report!=null ) {
+                    report.duplicate(entry.getPath(), file, identical);
+                }
+                if( canIgnoreDuplicates && identical ) {
+                    i.remove();
                 }
             }
 
             if( !ignores.isEmpty() ) {
                 String msgPrefix = "Overlapping sources for jar entry: ";
-                if( currentTransformer!=null ) {
-                    msgPrefix = currentTransformer.getClass().getSimpleName()+": "+msgPrefix;
+                if( run!=null ) {
+                    msgPrefix = run.transformer.getClass().getSimpleName()+": "+msgPrefix;
                 }
                 getLogger().warn("  "+msgPrefix+entry.getPath());
-                getLogger().warn("    Picking source: " + originalJar(pick));
+                getLogger().warn("    Picking source: " + describeSource(pick));
                 for (File dup : ignores) {
-                    getLogger().warn("    Ignoring source: " + originalJar(dup));
+                    getLogger().warn("    Ignoring source: " + describeSource(dup));
                 }
             }
 
@@ -206,22 +599,27 @@ public class DefaultUberizer extends AbstractLogEnabled implements Uberizer {
         return entry.getSources().get(0);
     }
 
-    /**
-     * Try to find the original jar for a source file.
-     * If it's a tranformed source.. then this may not be possible.
-     * 
-     * @param source
-     * @return
-     * @throws IOException
-     */
-    private File originalJar(File source) throws IOException {
-        String sourcePath = source.getCanonicalPath();
-        for (File file : extractionMapping.keySet()) {
-            if( sourcePath.startsWith(file.getCanonicalPath()+File.separator) ) {
-                return extractionMapping.get(file);
+    public File getOriginalJar(File source) {
+        if( source instanceof JarEntrySource ) {
+            return ((JarEntrySource) source).getJar();
+        }
+        File jar = generatedFrom.get(source);
+        if( jar != null ) {
+            return jar;
+        }
+        // Perhaps it's a file in the work directory of a jar.
+        for (File dir = source.getParentFile(); dir != null; dir = dir.getParentFile()) {
+            jar = extractionMapping.get(dir);
+            if( jar != null ) {
+                return jar;
             }
         }
-        return source;
+        return null;
+    }
+
+    private File describeSource(File source) {
+        File jar = getOriginalJar(source);
+        return jar != null ? jar : source;
     }
 
     private boolean isFileTypeThatCanIgnoreDuplicates(String path) {
@@ -244,10 +642,92 @@ public class DefaultUberizer extends AbstractLogEnabled implements Uberizer {
                 ;
     }
 
+    public ExecutorService getExecutor() {
+        // Transformers run on their own, like in the benchmarks, use the shared executor.
+        return executor!=null ? executor : sharedExecutor;
+    }
+
+    public boolean isUpToDate(File target, List<File> sources) throws IOException {
+        // Remember which jar the target comes from if all it's sources come from the same one.
+        File jar = null;
+        for (File source : sources) {
+            File sourceJar = getOriginalJar(source);
+            if( sourceJar == null || (jar != null && !jar.equals(sourceJar)) ) {
+                jar = null;
+                break;
+            }
+            jar = sourceJar;
+        }
+        if( jar != null ) {
+            generatedFrom.put(target, jar);
+        } else {
+            generatedFrom.remove(target);
+        }
+
+        if( manifest==null ) {
+            return false;
+        }
+        StringBuilder fingerprint = new StringBuilder();
+        for (File source : sources) {
+            if( source instanceof JarEntrySource ) {
+                JarEntrySource jarSource = (JarEntrySource) source;
+                fingerprint.append(jarSource.getSourceJar().getSha1()).append('!').append(jarSource.getEntryName());
+            } else {
+                fingerprint.append(source.getPath()).append(':').append(source.length()).append(':').append(source.lastModified());
+            }
+            fingerprint.append(';');
+        }
+        return manifest.isUpToDate(target, fingerprint.toString());
+    }
+
+    public UberizeStats getStats() {
+        return stats;
+    }
+
     public HashMap<String, String>  getClassRelocations() {
         return this.classRelocations;
     }
 
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public void setReport(boolean report) {
+        this.reporting = report;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public void setExecutor(ExecutorService executor) {
+        this.sharedExecutor = executor;
+    }
+
     static void getParentDirs(String path, ArrayList<String> dirs) {
         if (path.length() < 2) {
             return;
@@ -284,6 +764,175 @@ public class DefaultUberizer extends AbstractLogEnabled implements Uberizer {
         return file;
     }
 
+    /**
+     * Opens a stream to the data of an uber entry source.  Transformers should
+     * use this method instead of opening a FileInputStream since the sources
+     * of jar entries are not extracted to the work directory when the uberizer
+     * is streaming.
+     *
+     * @param source
+     * @return
+     * @throws IOException
+     */
+    public static InputStream openInputStream(File source) throws IOException {
+        if( source instanceof JarEntrySource ) {
+            return ((JarEntrySource) source).openStream();
+        }
+        return new FileInputStream(source);
+    }
+
+    /**
+     * Reads all the data of a source.
+     *
+     * @param source
+     * @return the data
+     * @throws IOException
+     */
+    public static byte[] readBytes(File source) throws IOException {
+        if( source instanceof JarEntrySource ) {
+            return ((JarEntrySource) source).readBytes();
+        }
+        RandomAccessFile file = new RandomAccessFile(source, "r");
+        try {
+            if( file.length() > Integer.MAX_VALUE ) {
+                throw new IOException("File is too big: "+source);
+            }
+            byte[] rc = new byte[(int) file.length()];
+            file.readFully(rc);
+            return rc;
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Compares the content of two sources.  The sizes and CRCs of entries which
+     * come from source jars are compared first, the SHA-1 digests of the sources
+     * are only computed if those match.  The digests are computed once per source.
+     */
+    private boolean contentEquals(File file1, File file2) throws IOException {
+        if( file1.equals(file2) ) {
+            return true;
+        }
+        ContentDigest d1 = getDigest(file1);
+        ContentDigest d2 = getDigest(file2);
+        if( d1.size >= 0 && d2.size >= 0 && d1.size != d2.size ) {
+            return false;
+        }
+        if( d1.crc >= 0 && d2.crc >= 0 && d1.crc != d2.crc ) {
+            return false;
+        }
+        return Arrays.equals(d1.getSha1(file1), d2.getSha1(file2));
+    }
+
+    private ContentDigest getDigest(File file) {
+        ContentDigest rc = digests.get(file);
+        if( rc == null || !rc.isCurrent(file) ) {
+            rc = new ContentDigest(file);
+            digests.put(file, rc);
+        }
+        return rc;
+    }
+
+    static class ContentDigest {
+        long size = -1;
+        long crc = -1;
+        long modified;
+        byte[] sha1;
+
+        ContentDigest(File file) {
+            if( file instanceof JarEntrySource ) {
+                JarEntrySource source = (JarEntrySource) file;
+                CentralDirectory.Record record = source.getSourceJar().getRecord(source.getEntryName());
+                if( record != null ) {
+                    size = record.size;
+                    crc = record.crc;
+                }
+            } else {
+                size = file.length();
+                modified = file.lastModified();
+            }
+        }
+
+        /**
+         * Jar entries don't change, but transformers could regenerate a file.
+         */
+        boolean isCurrent(File file) {
+            return file instanceof JarEntrySource || (size == file.length() && modified == file.lastModified());
+        }
+
+        synchronized byte[] getSha1(File file) throws IOException {
+            if( sha1 == null ) {
+                MessageDigest digest;
+                try {
+                    digest = MessageDigest.getInstance("SHA-1");
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException(e);
+                }
+                InputStream is = openInputStream(file);
+                try {
+                    byte[] buffer = new byte[8192];
+                    int count;
+                    while( (count = is.read(buffer)) > 0 ) {
+                        digest.update(buffer, 0, count);
+                    }
+                } finally {
+                    IOUtil.close(is);
+                }
+                sha1 = digest.digest();
+            }
+            return sha1;
+        }
+    }
+
+    /**
+     * Runs the task on the executor, or on the calling thread if
+     * the executor is null.
+     *
+     * @param executor
+     * @param task
+     * @return the future result of the task
+     */
+    public static <T> Future<T> submit(ExecutorService executor, Callable<T> task) {
+        if( executor == null ) {
+            FutureTask<T> rc = new FutureTask<T>(task);
+            rc.run();
+            return rc;
+        }
+        return executor.submit(task);
+    }
+
+    /**
+     * Waits for the result of a task, rethrowing the exception
+     * the task failed with.
+     *
+     * @param future
+     * @return the result of the task
+     * @throws IOException
+     */
+    public static <T> T get(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if( cause instanceof IOException ) {
+                throw (IOException) cause;
+            }
+            if( cause instanceof RuntimeException ) {
+                throw (RuntimeException) cause;
+            }
+            if( cause instanceof Error ) {
+                throw (Error) cause;
+            }
+            IOException ioe = new IOException(cause.toString());
+            ioe.initCause(cause);
+            throw ioe;
+        }
+    }
+
     public static File prepareFile(File basedir, String path) throws IOException {
         File file = FileUtils.resolveFile(basedir, path);
         // Lets do a sanity check that the file resolved to be a sub dir.
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.fusesource.mvnplugins.uberize;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * An UberEntry source which originates from an entry of a source jar.
+ * The path of this file is the location the entry gets extracted to
+ * in the work directory.  When the uberizer is streaming, the entry is
+ * not extracted and that file will not exist, so the data should be
+ * accessed using {@link #openStream()} or
+ * {@link DefaultUberizer#openInputStream(File)}.
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+public class JarEntrySource extends File {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient SourceJar jar;
+    private final String name;
+    private boolean extracted;
+
+    JarEntrySource(SourceJar jar, String name) {
+        super(jar.getWorkDir(), name);
+        this.jar = jar;
+        this.name = name;
+    }
+
+    /**
+     * @return the jar that this entry was read from.
+     */
+    public File getJar() {
+        return jar.getFile();
+    }
+
+    /**
+     * @return the name of the entry in the jar.
+     */
+    public String getEntryName() {
+        return name;
+    }
+
+    /**
+     * @return true if the entry has been extracted to the work directory.
+     */
+    public boolean isExtracted() {
+        return extracted;
+    }
+
+    /**
+     * Marks the entry as extracted, used when the entry was
+     * extracted to the work directory by a previous run.
+     */
+    synchronized void reuseExtracted() {
+        extracted = true;
+    }
+
+    SourceJar getSourceJar() {
+        return jar;
+    }
+
+    /**
+     * @return the uncompressed size of the entry or -1 if it's not known.
+     */
+    long getSize() {
+        if( extracted ) {
+            return length();
+        }
+        CentralDirectory.Record record = jar.getRecord(name);
+        return record != null ? record.size : -1;
+    }
+
+    /**
+     * Opens a stream to the entry data.  The data is read from the extracted
+     * file if the entry has been extracted, otherwise it's streamed from the jar.
+     *
+     * @return
+     * @throws IOException
+     */
+    public InputStream openStream() throws IOException {
+        if( extracted ) {
+            return new FileInputStream(this);
+        }
+        CentralDirectory.Record record = jar.getRecord(name);
+        if( record != null ) {
+            return jar.openStream(record);
+        }
+        JarFile jarFile = jar.getJarFile();
+        ZipEntry entry = jarFile.getEntry(name);
+        if( entry == null ) {
+            throw new FileNotFoundException("Entry "+name+" not found in jar: "+jar.getFile());
+        }
+        return jarFile.getInputStream(entry);
+    }
+
+    /**
+     * Reads all the entry data.  When the entry is read from the memory mapped
+     * jar, it's decompressed straight into the returned array.
+     *
+     * @return the entry data
+     * @throws IOException
+     */
+    public byte[] readBytes() throws IOException {
+        if( !extracted ) {
+            CentralDirectory.Record record = jar.getRecord(name);
+            if( record != null ) {
+                return jar.readData(record);
+            }
+        }
+        InputStream is = openStream();
+        try {
+            return IOUtil.toByteArray(is);
+        } finally {
+            IOUtil.close(is);
+        }
+    }
+
+    /**
+     * Extracts the entry to the work directory if it has not been
+     * extracted yet.
+     *
+     * @return this file.
+     * @throws IOException
+     */
+    public synchronized File extract() throws IOException {
+        if( !extracted ) {
+            // Lets do a sanity check that the file resolves to be in the work dir.
+            if( !isRelativePath(name) ) {
+                throw new IOException("Bad output file name resolution: " + name);
+            }
+            getParentFile().mkdirs();
+            InputStream is = openStream();
+            try {
+                FileOutputStream os = new FileOutputStream(this);
+                try {
+                    IOUtil.copy(is, os);
+                } finally {
+                    IOUtil.close(os);
+                }
+            } finally {
+                IOUtil.close(is);
+            }
+            extracted = true;
+        }
+        return this;
+    }
+
+    static boolean isRelativePath(String path) {
+        if( path.length()==0 || path.charAt(0)=='/' || path.charAt(0)=='\\' ) {
+            return false;
+        }
+        int start=0;
+        for( int i=0; i <= path.length(); i++ ) {
+            if( i==path.length() || path.charAt(i)=='/' || path.charAt(i)=='\\' ) {
+                String segment = path.substring(start, i);
+                if( segment.equals("..") || (start==0 && segment.indexOf(':')>=0) ) {
+                    return false;
+                }
+                start = i+1;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.fusesource.mvnplugins.uberize;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Describes a set of uber entry paths by their prefixes, their
+ * extensions or their exact paths.  The uberizer uses it to find
+ * the entries a {@link ScopedTransformer} needs to process without
+ * having to go through all the entries.
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+public class PathScope {
+
+    private final HashSet<String> prefixes = new HashSet<String>();
+    private final HashSet<String> extensions = new HashSet<String>();
+    private final HashSet<String> paths = new HashSet<String>();
+    private final HashSet<String> pathsIgnoringCase = new HashSet<String>();
+
+    /**
+     * Adds all the paths which start with the prefix, for example <code>META-INF/services/</code>
+     */
+    public PathScope prefix(String prefix) {
+        prefixes.add(prefix);
+        return this;
+    }
+
+    /**
+     * Adds all the paths which end with the extension, for example <code>.class</code>
+     */
+    public PathScope extension(String extension) {
+        extensions.add(extension);
+        return this;
+    }
+
+    /**
+     * Adds a single path.
+     */
+    public PathScope path(String path) {
+        paths.add(path);
+        return this;
+    }
+
+    /**
+     * Adds a single path, compared without regard to case.
+     */
+    public PathScope pathIgnoringCase(String path) {
+        pathsIgnoringCase.add(toLowerCase(path));
+        return this;
+    }
+
+    /**
+     * Adds all the paths of another scope.
+     */
+    public PathScope add(PathScope scope) {
+        prefixes.addAll(scope.prefixes);
+        extensions.addAll(scope.extensions);
+        paths.addAll(scope.paths);
+        pathsIgnoringCase.addAll(scope.pathsIgnoringCase);
+        return this;
+    }
+
+    public boolean contains(String path) {
+        if( paths.contains(path) ) {
+            return true;
+        }
+        String extension = getExtension(path);
+        if( extension!=null && extensions.contains(extension) ) {
+            return true;
+        }
+        if( !pathsIgnoringCase.isEmpty() && pathsIgnoringCase.contains(toLowerCase(path)) ) {
+            return true;
+        }
+        for (String prefix : prefixes) {
+            if( path.startsWith(prefix) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param other
+     * @return false if no path can be in both scopes.  Since any path under a
+     *         prefix could have any extension, a prefix always overlaps with an
+     *         extension.
+     */
+    public boolean overlaps(PathScope other) {
+        return overlapsWith(other) || other.overlapsWith(this);
+    }
+
+    private boolean overlapsWith(PathScope other) {
+        for (String path : paths) {
+            if( other.contains(path) ) {
+                return true;
+            }
+        }
+        for (String path : pathsIgnoringCase) {
+            if( other.pathsIgnoringCase.contains(path) ) {
+                return true;
+            }
+            for (String extension : other.extensions) {
+                if( path.endsWith(toLowerCase(extension)) ) {
+                    return true;
+                }
+            }
+            for (String prefix : other.prefixes) {
+                if( path.startsWith(toLowerCase(prefix)) ) {
+                    return true;
+                }
+            }
+        }
+        for (String prefix : prefixes) {
+            for (String otherPrefix : other.prefixes) {
+                if( prefix.startsWith(otherPrefix) ) {
+                    return true;
+                }
+            }
+            if( !other.extensions.isEmpty() ) {
+                return true;
+            }
+        }
+        for (String extension : extensions) {
+            if( other.extensions.contains(extension) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    Set<String> getPrefixes() {
+        return prefixes;
+    }
+
+    Set<String> getExtensions() {
+        return extensions;
+    }
+
+    Set<String> getPaths() {
+        return paths;
+    }
+
+    Set<String> getPathsIgnoringCase() {
+        return pathsIgnoringCase;
+    }
+
+    /**
+     * @return the extension of the path, including the dot, or null if it does not have one.
+     */
+    static String getExtension(String path) {
+        int dot = path.lastIndexOf('.');
+        if( dot < 0 || path.indexOf('/', dot) >= 0 ) {
+            return null;
+        }
+        return path.substring(dot);
+    }
+
+    static String toLowerCase(String path) {
+        return path.toLowerCase(Locale.ENGLISH);
+    }
+
+}
@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.fusesource.mvnplugins.uberize;
+
+/**
+ * A transformer which only cares about some of the uber entries.  Instead
+ * of the whole tree, the uberizer passes it a tree holding just the entries
+ * which are in it's scope.  The changes the transformer makes to that tree
+ * are then applied to the uber jar's tree.
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+public interface ScopedTransformer extends Transformer {
+
+    /**
+     * @return the paths of the entries the transformer needs to see or
+     *         null if it needs to see all the entries.
+     */
+    public PathScope getScope();
+
+}
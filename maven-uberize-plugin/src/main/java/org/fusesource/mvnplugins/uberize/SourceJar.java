@@ -0,0 +1,340 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.fusesource.mvnplugins.uberize;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.jar.JarFile;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Keeps track of a source jar that is being uberized and the
+ * work directory its entries get extracted to.  The jar file
+ * is memory mapped lazily and stays mapped until the uberizer closes
+ * it at the end of the run so that entry data can be read straight out
+ * of the jar without going through a stream per entry.  Jars which can't be mapped or
+ * parsed are read with a {@link JarFile} instead.
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+class SourceJar {
+
+    private final File file;
+    private final String id;
+    private final File workDir;
+    private JarFile jarFile;
+    private ByteBuffer data;
+    private CentralDirectory centralDirectory;
+    private boolean mapped;
+    private String sha1;
+
+    SourceJar(File file, String id, File workDir) {
+        this.file = file;
+        this.id = id;
+        this.workDir = workDir;
+    }
+
+    /**
+     * @return the jar file on disk.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the id of the jar in the uberizer's jar-mapping.txt
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return the directory the entries of the jar get extracted to.
+     */
+    public File getWorkDir() {
+        return workDir;
+    }
+
+    /**
+     * @return the content hash of the jar or null if it was not computed.
+     */
+    public String getSha1() {
+        return sha1;
+    }
+
+    void setSha1(String sha1) {
+        this.sha1 = sha1;
+    }
+
+    synchronized JarFile getJarFile() throws IOException {
+        if( jarFile==null ) {
+            jarFile = new JarFile(file);
+        }
+        return jarFile;
+    }
+
+    /**
+     * @return the central directory of the memory mapped jar, or null if the
+     *         jar could not be mapped or parsed.
+     */
+    synchronized CentralDirectory getCentralDirectory() {
+        if( !mapped ) {
+            mapped = true;
+            try {
+                RandomAccessFile raf = new RandomAccessFile(file, "r");
+                try {
+                    FileChannel channel = raf.getChannel();
+                    if( channel.size() <= Integer.MAX_VALUE ) {
+                        // The mapping stays valid after the channel is closed.
+                        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                        centralDirectory = CentralDirectory.read(buffer);
+                        data = buffer;
+                    }
+                } finally {
+                    raf.close();
+                }
+            } catch (IOException e) {
+                // We will fall back to reading the jar with a JarFile.
+                centralDirectory = null;
+            }
+        }
+        return centralDirectory;
+    }
+
+    /**
+     * @param name
+     * @return the central directory record of the entry or null if the
+     *         entry data can't be read as is from this jar.
+     */
+    CentralDirectory.Record getRecord(String name) {
+        CentralDirectory cd = getCentralDirectory();
+        if( cd == null ) {
+            return null;
+        }
+        CentralDirectory.Record record = cd.get(name);
+        if( record == null || !record.isCopyable() ) {
+            return null;
+        }
+        return record;
+    }
+
+    /**
+     * @param record
+     * @return a buffer holding the compressed data of the entry.
+     * @throws IOException
+     */
+    ByteBuffer getRawData(CentralDirectory.Record record) throws IOException {
+        ByteBuffer buffer;
+        synchronized (this) {
+            if( data == null ) {
+                throw new IOException("Jar is not mapped: "+file);
+            }
+            buffer = data.duplicate();
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        long offset = record.localHeaderOffset;
+        if( offset + CentralDirectory.LOCAL_HEADER_SIZE > buffer.limit()
+                || buffer.getInt((int) offset) != CentralDirectory.LOCAL_HEADER_SIG ) {
+            throw new IOException("Invalid local file header for entry "+record.name+" in jar: "+file);
+        }
+        int nameLength = CentralDirectory.getShort(buffer, (int) offset + 26);
+        int extraLength = CentralDirectory.getShort(buffer, (int) offset + 28);
+        long start = offset + CentralDirectory.LOCAL_HEADER_SIZE + nameLength + extraLength;
+        if( start + record.compressedSize > buffer.limit() ) {
+            throw new IOException("Unexpected end of jar: "+file);
+        }
+        buffer.position((int) start);
+        buffer.limit((int) (start + record.compressedSize));
+        return buffer.slice();
+    }
+
+    /**
+     * Copies the compressed data of an entry to the output stream.
+     *
+     * @param record
+     * @param os
+     * @throws IOException
+     */
+    void copyRawData(CentralDirectory.Record record, OutputStream os) throws IOException {
+        ByteBuffer buffer = getRawData(record);
+        byte[] chunk = new byte[Math.min(8192, Math.max(1, buffer.remaining()))];
+        while( buffer.hasRemaining() ) {
+            int count = Math.min(chunk.length, buffer.remaining());
+            buffer.get(chunk, 0, count);
+            os.write(chunk, 0, count);
+        }
+    }
+
+    /**
+     * @param record
+     * @return the uncompressed data of the entry after checking it against the
+     *         CRC-32 of the central directory record.
+     * @throws IOException
+     */
+    byte[] readData(CentralDirectory.Record record) throws IOException {
+        ByteBuffer buffer = getRawData(record);
+        if( record.size > Integer.MAX_VALUE ) {
+            throw new IOException("Entry "+record.name+" is too big: "+file);
+        }
+        byte[] rc = new byte[(int) record.size];
+        if( record.method == 0 ) {
+            if( record.size != record.compressedSize ) {
+                throw new ZipException("Invalid entry size for entry "+record.name+" in jar: "+file);
+            }
+            buffer.get(rc);
+            checkCrc(record, rc);
+            return rc;
+        }
+        byte[] compressed = new byte[buffer.remaining()];
+        buffer.get(compressed);
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed);
+            int count = 0;
+            while( count < rc.length ) {
+                int inflated = inflater.inflate(rc, count, rc.length - count);
+                if( inflated == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()) ) {
+                    break;
+                }
+                count += inflated;
+            }
+            if( count != rc.length ) {
+                throw new ZipException("Invalid entry size for entry "+record.name+" in jar: "+file);
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException("Invalid compressed data for entry "+record.name+" in jar: "+file);
+        } finally {
+            inflater.end();
+        }
+        checkCrc(record, rc);
+        return rc;
+    }
+
+    private void checkCrc(CentralDirectory.Record record, byte[] data) throws ZipException {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        if( crc.getValue() != record.crc ) {
+            throw new ZipException("Invalid CRC-32 for entry "+record.name+" in jar: "+file);
+        }
+    }
+
+    /**
+     * @param record
+     * @return a stream of the uncompressed data of the entry.
+     * @throws IOException
+     */
+    InputStream openStream(CentralDirectory.Record record) throws IOException {
+        InputStream is = new ByteBufferInputStream(getRawData(record));
+        if( record.method == 0 ) {
+            return is;
+        }
+        final Inflater inflater = new Inflater(true);
+        return new InflaterInputStream(is, inflater, 8192) {
+            boolean eof;
+            boolean closed;
+
+            protected void fill() throws IOException {
+                if( eof ) {
+                    throw new EOFException("Unexpected end of compressed data");
+                }
+                len = in.read(buf, 0, buf.length);
+                if( len < 0 ) {
+                    // Give the inflater the dummy byte it needs when there is no zlib wrapper.
+                    buf[0] = 0;
+                    len = 1;
+                    eof = true;
+                }
+                inf.setInput(buf, 0, len);
+            }
+
+            public void close() throws IOException {
+                if( !closed ) {
+                    closed = true;
+                    inflater.end();
+                    super.close();
+                }
+            }
+        };
+    }
+
+    static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        public int read(byte[] b, int off, int len) {
+            if( len == 0 ) {
+                return 0;
+            }
+            if( !buffer.hasRemaining() ) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    /**
+     * Closes the {@link JarFile} used to read the jar but keeps the jar mapped
+     * since the uber jar writer still copies entry data out of it.
+     */
+    synchronized void closeJarFile() {
+        if( jarFile!=null ) {
+            try {
+                jarFile.close();
+            } catch (IOException ignore) {
+            }
+            jarFile = null;
+        }
+    }
+
+    /**
+     * Releases the jar once the uberizer is done with it.
+     */
+    synchronized void close() {
+        closeJarFile();
+        // The mapping gets released once the buffer is garbage collected.
+        data = null;
+        centralDirectory = null;
+        mapped = false;
+    }
+
+}
@@ -20,6 +20,7 @@ package org.fusesource.mvnplugins.uberize;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -30,21 +31,28 @@ import java.util.List;
  * replace the previous one but it will maintain a reference
  * to it so that the transformation history of the file path
  * can be inspected.
+ * <p>
+ * Uber jars can have hundreds of thousands of entries, so the
+ * entries are kept small: most entries have a single source and
+ * a single previous version.
+ * </p>
  *
  * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
  */
 public class UberEntry {
 
     private final String path;
-    private final ArrayList<File> sources = new ArrayList<File>();
-    private final List<UberEntry> previous;
+    private final ArrayList<File> sources = new ArrayList<File>(1);
+    // Either null, the previous UberEntry or the list of the previous UberEntrys.
+    private final Object previous;
 
     /**
      * Creates an UberEntry at located at the specified path.
      * @param path
      */
     public UberEntry(String path) {
-        this(path, (List<UberEntry>)null);
+        this.path = path;
+        this.previous = null;
     }
 
     /**
@@ -66,16 +74,7 @@ public class UberEntry {
      */
     public UberEntry(String path, UberEntry previous) {
         this.path = path;
-        this.previous = toList(previous);
-    }
-
-    static private List<UberEntry> toList(UberEntry entry) {
-        if( entry == null ) {
-            return null;
-        }
-        ArrayList rc = new ArrayList(1);
-        rc.add(entry);
-        return rc;
+        this.previous = previous;
     }
 
     public UberEntry(String path, List<UberEntry> previous) {
@@ -105,10 +104,14 @@ public class UberEntry {
      * @return The previous version of the UberEntry or null if this is the original version.
      */
     public UberEntry getPrevious() {
-        if( previous==null || previous.isEmpty() ) {
+        if( previous instanceof UberEntry ) {
+            return (UberEntry) previous;
+        }
+        List<UberEntry> list = getAllPrevious();
+        if( list==null || list.isEmpty() ) {
             return null;
         }
-        return previous.get(0);
+        return list.get(0);
     }
 
     /**
@@ -116,11 +119,12 @@ public class UberEntry {
      * then the prvious version of thise node will be a list of UberEntrys
      * @return
      */
+    @SuppressWarnings("unchecked")
     public List<UberEntry> getAllPrevious() {
-        if( previous==null ) {
-            return null;
+        if( previous instanceof UberEntry ) {
+            return Collections.singletonList((UberEntry) previous);
         }
-        return previous;
+        return (List<UberEntry>) previous;
     }
 
     public UberEntry addSource(File file) {
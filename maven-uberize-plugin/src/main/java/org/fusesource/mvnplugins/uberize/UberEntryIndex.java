@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.fusesource.mvnplugins.uberize;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+/**
+ * Finds the entries of the uber jar tree which are in a {@link PathScope}.
+ * Prefixes are looked up using the sorted tree itself, while the extension
+ * and case insensitive path indexes are built the first time they are needed.
+ * <p>
+ * The indexes are kept up to date as long as the tree is only modified
+ * through this class, {@link #invalidate()} must be called after the tree
+ * gets modified directly.
+ * </p>
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+class UberEntryIndex {
+
+    private final TreeMap<String, UberEntry> tree;
+    private HashMap<String, HashSet<String>> extensions;
+    private HashMap<String, HashSet<String>> pathsIgnoringCase;
+
+    UberEntryIndex(TreeMap<String, UberEntry> tree) {
+        this.tree = tree;
+    }
+
+    /**
+     * Drops the indexes, they get rebuilt the next time they are needed.
+     */
+    void invalidate() {
+        extensions = null;
+        pathsIgnoringCase = null;
+    }
+
+    /**
+     * @param scope
+     * @return a new tree holding the entries which are in the scope.
+     */
+    TreeMap<String, UberEntry> select(PathScope scope) {
+        TreeMap<String, UberEntry> rc = new TreeMap<String, UberEntry>();
+        for (String prefix : scope.getPrefixes()) {
+            rc.putAll(tree.subMap(prefix, prefix + Character.MAX_VALUE));
+        }
+        for (String path : scope.getPaths()) {
+            UberEntry entry = tree.get(path);
+            if( entry!=null ) {
+                rc.put(path, entry);
+            }
+        }
+        if( !scope.getExtensions().isEmpty() ) {
+            if( extensions == null ) {
+                extensions = new HashMap<String, HashSet<String>>();
+                for (String path : tree.keySet()) {
+                    add(extensions, PathScope.getExtension(path), path);
+                }
+            }
+            select(rc, extensions, scope.getExtensions());
+        }
+        if( !scope.getPathsIgnoringCase().isEmpty() ) {
+            if( pathsIgnoringCase == null ) {
+                pathsIgnoringCase = new HashMap<String, HashSet<String>>();
+                for (String path : tree.keySet()) {
+                    add(pathsIgnoringCase, PathScope.toLowerCase(path), path);
+                }
+            }
+            select(rc, pathsIgnoringCase, scope.getPathsIgnoringCase());
+        }
+        return rc;
+    }
+
+    private void select(TreeMap<String, UberEntry> rc, HashMap<String, HashSet<String>> index, Iterable<String> keys) {
+        for (String key : keys) {
+            HashSet<String> paths = index.get(key);
+            if( paths!=null ) {
+                for (String path : paths) {
+                    rc.put(path, tree.get(path));
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the changes a transformer made to a tree returned by {@link #select(PathScope)}.
+     *
+     * @param selected the entries the transformer was given
+     * @param transformed the tree after the transformer processed it
+     */
+    void apply(Map<String, UberEntry> selected, TreeMap<String, UberEntry> transformed) {
+        for (String path : selected.keySet()) {
+            if( !transformed.containsKey(path) ) {
+                remove(path);
+            }
+        }
+        for (Entry<String, UberEntry> entry : transformed.entrySet()) {
+            if( selected.get(entry.getKey()) != entry.getValue() ) {
+                put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    void put(String path, UberEntry entry) {
+        if( tree.put(path, entry) == null ) {
+            if( extensions!=null ) {
+                add(extensions, PathScope.getExtension(path), path);
+            }
+            if( pathsIgnoringCase!=null ) {
+                add(pathsIgnoringCase, PathScope.toLowerCase(path), path);
+            }
+        }
+    }
+
+    void remove(String path) {
+        if( tree.remove(path) != null ) {
+            if( extensions!=null ) {
+                remove(extensions, PathScope.getExtension(path), path);
+            }
+            if( pathsIgnoringCase!=null ) {
+                remove(pathsIgnoringCase, PathScope.toLowerCase(path), path);
+            }
+        }
+    }
+
+    private static void add(HashMap<String, HashSet<String>> index, String key, String path) {
+        if( key==null ) {
+            return;
+        }
+        HashSet<String> paths = index.get(key);
+        if( paths==null ) {
+            paths = new HashSet<String>();
+            index.put(key, paths);
+        }
+        paths.add(path);
+    }
+
+    private static void remove(HashMap<String, HashSet<String>> index, String key, String path) {
+        if( key==null ) {
+            return;
+        }
+        HashSet<String> paths = index.get(key);
+        if( paths!=null ) {
+            paths.remove(path);
+        }
+    }
+
+}
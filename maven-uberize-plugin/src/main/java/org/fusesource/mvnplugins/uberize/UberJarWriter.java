@@ -0,0 +1,344 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.fusesource.mvnplugins.uberize;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Writes the uber jar.  Unlike a JarOutputStream, it copies the already compressed
+ * data of the entries that come unmodified from a source jar (along with their
+ * original CRC and sizes), so only the entries generated by transformers have to
+ * be deflated.  Those get deflated concurrently into independent deflate streams
+ * while the jar is written out, in order, by the thread using the writer.
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+class UberJarWriter {
+
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+    private final CountingOutputStream out;
+    private final ArrayList<CentralDirectory.Record> written = new ArrayList<CentralDirectory.Record>();
+    private final LinkedList<PendingEntry> pending = new LinkedList<PendingEntry>();
+    private final ExecutorService executor;
+    private final int window;
+    private final int now = toDosTime(System.currentTimeMillis());
+    private int rawCopies;
+
+    /**
+     * The entries which need to be compressed are deflated on the executor while
+     * the entries ahead of them get written.  Up to <code>window</code> entries
+     * are queued up before the writer blocks to write out the oldest entry.
+     *
+     * @param file the jar file to write
+     * @param executor the executor to deflate entries on, or null to deflate them on the calling thread.
+     * @param window how many entries can be queued up for writing.
+     * @throws IOException
+     */
+    UberJarWriter(File file, ExecutorService executor, int window) throws IOException {
+        this.executor = executor;
+        this.window = executor == null ? 0 : Math.max(1, window);
+        out = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64*1024));
+    }
+
+    /**
+     * @return how many entries were copied without being recompressed.
+     */
+    public int getRawCopies() {
+        return rawCopies;
+    }
+
+    public void putDirectory(String name) throws IOException {
+        pending.add(new PendingEntry(name, null, null, null));
+        flush(window);
+    }
+
+    public void putEntry(String name, final File source) throws IOException {
+        if( source instanceof JarEntrySource ) {
+            JarEntrySource jarSource = (JarEntrySource) source;
+            CentralDirectory.Record original = jarSource.getSourceJar().getRecord(jarSource.getEntryName());
+            if( original!=null ) {
+                pending.add(new PendingEntry(name, jarSource, original, null));
+                flush(window);
+                return;
+            }
+        }
+
+        Future<Deflated> future = DefaultUberizer.submit(executor, new Callable<Deflated>() {
+            public Deflated call() throws Exception {
+                return deflate(source);
+            }
+        });
+        pending.add(new PendingEntry(name, null, null, future));
+        flush(window);
+    }
+
+    /**
+     * Writes out queued entries in order until no more than the
+     * specified number of entries are left in the queue.
+     */
+    private void flush(int limit) throws IOException {
+        while( pending.size() > limit ) {
+            PendingEntry entry = pending.removeFirst();
+            if( entry.original != null ) {
+                CentralDirectory.Record record = newRecord(entry.name, entry.original.method, entry.original.dosTime);
+                record.crc = entry.original.crc;
+                record.compressedSize = entry.original.compressedSize;
+                record.size = entry.original.size;
+                writeLocalHeader(record);
+                entry.source.getSourceJar().copyRawData(entry.original, out);
+                rawCopies++;
+            } else if( entry.deflated != null ) {
+                Deflated deflated = DefaultUberizer.get(entry.deflated);
+                CentralDirectory.Record record = newRecord(entry.name, 8, now);
+                record.crc = deflated.crc;
+                record.compressedSize = deflated.data.size();
+                record.size = deflated.size;
+                if( record.size >= ZIP64_MAGIC || record.compressedSize >= ZIP64_MAGIC ) {
+                    throw new IOException("Jar entry is too large: "+entry.name);
+                }
+                writeLocalHeader(record);
+                deflated.data.writeTo(out);
+            } else {
+                writeLocalHeader(newRecord(entry.name, 0, now));
+            }
+        }
+    }
+
+    /**
+     * Compresses the data of a source into an independent deflate stream.
+     */
+    static Deflated deflate(File source) throws IOException {
+        Deflated rc = new Deflated();
+        CRC32 crc = new CRC32();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            byte[] buffer = new byte[8192];
+            byte[] deflated = new byte[8192];
+            InputStream is = DefaultUberizer.openInputStream(source);
+            try {
+                int count;
+                while( (count = is.read(buffer)) > 0 ) {
+                    crc.update(buffer, 0, count);
+                    rc.size += count;
+                    deflater.setInput(buffer, 0, count);
+                    while( !deflater.needsInput() ) {
+                        rc.data.write(deflated, 0, deflater.deflate(deflated, 0, deflated.length));
+                    }
+                }
+            } finally {
+                IOUtil.close(is);
+            }
+            deflater.finish();
+            while( !deflater.finished() ) {
+                rc.data.write(deflated, 0, deflater.deflate(deflated, 0, deflated.length));
+            }
+        } finally {
+            deflater.end();
+        }
+        rc.crc = crc.getValue();
+        return rc;
+    }
+
+    static class Deflated {
+        final ByteArrayOutputStream data = new ByteArrayOutputStream();
+        long crc;
+        long size;
+    }
+
+    static class PendingEntry {
+        final String name;
+        final JarEntrySource source;
+        final CentralDirectory.Record original;
+        final Future<Deflated> deflated;
+
+        PendingEntry(String name, JarEntrySource source, CentralDirectory.Record original, Future<Deflated> deflated) {
+            this.name = name;
+            this.source = source;
+            this.original = original;
+            this.deflated = deflated;
+        }
+    }
+
+    private CentralDirectory.Record newRecord(String name, int method, int dosTime) {
+        CentralDirectory.Record record = new CentralDirectory.Record();
+        record.name = name;
+        record.method = method;
+        record.dosTime = dosTime;
+        record.flags = CentralDirectory.FLAG_UTF8;
+        record.localHeaderOffset = out.getCount();
+        written.add(record);
+        return record;
+    }
+
+    private void writeLocalHeader(CentralDirectory.Record record) throws IOException {
+        byte[] name = record.name.getBytes("UTF-8");
+        writeInt(CentralDirectory.LOCAL_HEADER_SIG);
+        writeShort(record.method == 8 ? 20 : 10);
+        writeShort(record.flags);
+        writeShort(record.method);
+        writeInt(record.dosTime);
+        writeInt(record.crc);
+        writeInt(record.compressedSize);
+        writeInt(record.size);
+        writeShort(name.length);
+        writeShort(0);
+        out.write(name);
+    }
+
+    public void close() throws IOException {
+        try {
+            flush(0);
+            long cdOffset = out.getCount();
+            for (CentralDirectory.Record record : written) {
+                byte[] name = record.name.getBytes("UTF-8");
+                boolean zip64 = record.localHeaderOffset >= ZIP64_MAGIC;
+                writeInt(CentralDirectory.CENTRAL_HEADER_SIG);
+                writeShort(zip64 ? 45 : 20);
+                writeShort(zip64 ? 45 : (record.method == 8 ? 20 : 10));
+                writeShort(record.flags);
+                writeShort(record.method);
+                writeInt(record.dosTime);
+                writeInt(record.crc);
+                writeInt(record.compressedSize);
+                writeInt(record.size);
+                writeShort(name.length);
+                writeShort(zip64 ? 12 : 0);
+                writeShort(0);
+                writeShort(0);
+                writeShort(0);
+                writeInt(0);
+                writeInt(zip64 ? ZIP64_MAGIC : record.localHeaderOffset);
+                out.write(name);
+                if( zip64 ) {
+                    writeShort(0x0001);
+                    writeShort(8);
+                    writeLong(record.localHeaderOffset);
+                }
+            }
+            long cdEnd = out.getCount();
+            long cdSize = cdEnd - cdOffset;
+            int count = written.size();
+
+            boolean zip64 = count >= 0xFFFF || cdOffset >= ZIP64_MAGIC || cdSize >= ZIP64_MAGIC;
+            if( zip64 ) {
+                writeInt(CentralDirectory.ZIP64_END_SIG);
+                writeLong(44);
+                writeShort(45);
+                writeShort(45);
+                writeInt(0);
+                writeInt(0);
+                writeLong(count);
+                writeLong(count);
+                writeLong(cdSize);
+                writeLong(cdOffset);
+
+                writeInt(CentralDirectory.ZIP64_LOCATOR_SIG);
+                writeInt(0);
+                writeLong(cdEnd);
+                writeInt(1);
+            }
+
+            writeInt(CentralDirectory.END_SIG);
+            writeShort(0);
+            writeShort(0);
+            writeShort(Math.min(count, 0xFFFF));
+            writeShort(Math.min(count, 0xFFFF));
+            writeInt(Math.min(cdSize, ZIP64_MAGIC));
+            writeInt(Math.min(cdOffset, ZIP64_MAGIC));
+            writeShort(0);
+        } finally {
+            for (PendingEntry entry : pending) {
+                if( entry.deflated != null ) {
+                    entry.deflated.cancel(true);
+                }
+            }
+            out.close();
+        }
+    }
+
+    private void writeShort(int value) throws IOException {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+    }
+
+    private void writeInt(long value) throws IOException {
+        writeShort((int) (value & 0xFFFF));
+        writeShort((int) ((value >>> 16) & 0xFFFF));
+    }
+
+    private void writeLong(long value) throws IOException {
+        writeInt(value & 0xFFFFFFFFL);
+        writeInt(value >>> 32);
+    }
+
+    static int toDosTime(long time) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTimeInMillis(time);
+        int year = cal.get(Calendar.YEAR);
+        if( year < 1980 ) {
+            return (1 << 21) | (1 << 16);
+        }
+        return (year - 1980) << 25
+             | (cal.get(Calendar.MONTH) + 1) << 21
+             | cal.get(Calendar.DAY_OF_MONTH) << 16
+             | cal.get(Calendar.HOUR_OF_DAY) << 11
+             | cal.get(Calendar.MINUTE) << 5
+             | cal.get(Calendar.SECOND) >> 1;
+    }
+
+    static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
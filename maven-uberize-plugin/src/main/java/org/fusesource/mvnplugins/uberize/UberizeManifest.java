@@ -0,0 +1,301 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.fusesource.mvnplugins.uberize;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Pattern;
+
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Records what an incremental uberize run was built from, so that the next
+ * run can reuse the work directory content of the inputs that did not change.
+ * It keeps track of the size, modification time and content hash of the
+ * source jars, a fingerprint of the configuration of the transformers and
+ * the sources of the files the transformers generated.
+ * <p>
+ * The manifest is deleted when a run starts and is only stored once the
+ * run completes, so a failed run causes the next one to start from scratch.
+ * </p>
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+class UberizeManifest {
+
+    private static final String VERSION = "1";
+
+    private final File file;
+    private final File targetDir;
+    private final Properties previous = new Properties();
+    private final Properties next = new Properties();
+    private final HashMap<File, String> outputs = new HashMap<File, String>();
+
+    UberizeManifest(File targetDir, File uberJar) {
+        this.targetDir = targetDir;
+        this.file = new File(targetDir, uberJar.getName() + "-manifest.properties");
+    }
+
+    /**
+     * Loads the manifest of the previous run and deletes it.
+     *
+     * @throws IOException
+     */
+    void load() throws IOException {
+        if( file.exists() ) {
+            InputStream is = new FileInputStream(file);
+            try {
+                previous.load(is);
+            } finally {
+                IOUtil.close(is);
+            }
+            if( !VERSION.equals(previous.getProperty("version")) ) {
+                previous.clear();
+            }
+            file.delete();
+        }
+        next.setProperty("version", VERSION);
+    }
+
+    /**
+     * Stores the manifest for the next run.
+     *
+     * @throws IOException
+     */
+    void store() throws IOException {
+        for (Map.Entry<File, String> entry : outputs.entrySet()) {
+            File target = entry.getKey();
+            if( target.isFile() ) {
+                next.setProperty("output." + relativePath(target), entry.getValue() + "|" + stamp(target));
+            }
+        }
+        OutputStream os = new FileOutputStream(file);
+        try {
+            next.store(os, "Uberize manifest, used to rebuild the uber jar incrementally.");
+        } finally {
+            IOUtil.close(os);
+        }
+    }
+
+    /**
+     * Compares the jar against the one used by the previous run with the same
+     * jar id and records it for the next run.  The jar's content hash is only
+     * computed if it's size or modification time changed.
+     *
+     * @param jar
+     * @param extracting if the entries of the jar get extracted in this run.
+     * @return true if the entries the previous run extracted can be reused.
+     * @throws IOException
+     */
+    boolean updateJar(SourceJar jar, boolean extracting) throws IOException {
+        String prefix = "jar." + jar.getId() + ".";
+        File jarFile = jar.getFile();
+        String size = Long.toString(jarFile.length());
+        String modified = Long.toString(jarFile.lastModified());
+
+        boolean same = jarFile.getPath().equals(previous.getProperty(prefix + "path"));
+        String sha1 = null;
+        if( same && size.equals(previous.getProperty(prefix + "size")) && modified.equals(previous.getProperty(prefix + "modified")) ) {
+            sha1 = previous.getProperty(prefix + "sha1");
+        }
+        if( sha1 == null ) {
+            sha1 = sha1(jarFile);
+        }
+        same = same && sha1.equals(previous.getProperty(prefix + "sha1"));
+        jar.setSha1(sha1);
+
+        next.setProperty(prefix + "path", jarFile.getPath());
+        next.setProperty(prefix + "size", size);
+        next.setProperty(prefix + "modified", modified);
+        next.setProperty(prefix + "sha1", sha1);
+        next.setProperty(prefix + "extracted", Boolean.toString(extracting));
+        return same && extracting && "true".equals(previous.getProperty(prefix + "extracted"));
+    }
+
+    /**
+     * Compares the configuration of the transformer against the one used by
+     * the previous run and records it for the next run.
+     *
+     * @param id
+     * @param transformer
+     * @return true if the transformer is configured like it was in the previous run.
+     */
+    boolean updateTransformer(String id, Transformer transformer) {
+        String fingerprint = sha1(fingerprint(transformer));
+        next.setProperty(id + ".fingerprint", fingerprint);
+        return fingerprint.equals(previous.getProperty(id + ".fingerprint"));
+    }
+
+    /**
+     * Checks if the previous run generated the target from the same sources and
+     * records the sources of the target for the next run.
+     *
+     * @param target
+     * @param sources a fingerprint of the sources of the target
+     * @return true if the target can be reused.
+     */
+    synchronized boolean isUpToDate(File target, String sources) {
+        // If some other entry already generated the target in this run, it's not ours anymore.
+        if( outputs.put(target, sources) != null ) {
+            return false;
+        }
+        String recorded = previous.getProperty("output." + relativePath(target));
+        return target.isFile() && (sources + "|" + stamp(target)).equals(recorded);
+    }
+
+    private String relativePath(File target) {
+        String path = target.getPath();
+        String base = targetDir.getPath() + File.separator;
+        if( path.startsWith(base) ) {
+            path = path.substring(base.length());
+        }
+        return path.replace(File.separatorChar, '/');
+    }
+
+    private static String stamp(File file) {
+        return file.length() + ":" + file.lastModified();
+    }
+
+    static String sha1(File file) throws IOException {
+        MessageDigest digest = createDigest();
+        InputStream is = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[8192];
+            int count;
+            while( (count = is.read(buffer)) > 0 ) {
+                digest.update(buffer, 0, count);
+            }
+        } finally {
+            IOUtil.close(is);
+        }
+        return toHex(digest.digest());
+    }
+
+    static String sha1(String value) {
+        MessageDigest digest = createDigest();
+        try {
+            return toHex(digest.digest(value.getBytes("UTF-8")));
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] data) {
+        StringBuilder sb = new StringBuilder(data.length * 2);
+        for (byte b : data) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Builds a description of the configuration of an object by reflectively
+     * walking through it's fields.
+     *
+     * @param value
+     * @return
+     */
+    static String fingerprint(Object value) {
+        StringBuilder sb = new StringBuilder();
+        fingerprint(value, sb, 0);
+        return sb.toString();
+    }
+
+    private static void fingerprint(Object value, StringBuilder sb, int depth) {
+        if( value == null ) {
+            sb.append("null");
+        } else if( value instanceof String || value instanceof Number || value instanceof Boolean
+                || value instanceof Character || value instanceof Enum || value instanceof File ) {
+            sb.append(value);
+        } else if( value instanceof Pattern ) {
+            sb.append(((Pattern) value).pattern());
+        } else if( value instanceof Logger || depth > 10 ) {
+            sb.append('-');
+        } else if( value.getClass().isArray() ) {
+            sb.append('[');
+            int length = Array.getLength(value);
+            for( int i = 0; i < length; i++ ) {
+                fingerprint(Array.get(value, i), sb, depth + 1);
+                sb.append(',');
+            }
+            sb.append(']');
+        } else if( value instanceof Collection ) {
+            sb.append('[');
+            for (Object item : (Collection) value) {
+                fingerprint(item, sb, depth + 1);
+                sb.append(',');
+            }
+            sb.append(']');
+        } else if( value instanceof Map ) {
+            sb.append('{');
+            for (Object o : ((Map) value).entrySet()) {
+                Map.Entry entry = (Map.Entry) o;
+                fingerprint(entry.getKey(), sb, depth + 1);
+                sb.append('=');
+                fingerprint(entry.getValue(), sb, depth + 1);
+                sb.append(',');
+            }
+            sb.append('}');
+        } else {
+            sb.append(value.getClass().getName()).append('{');
+            for( Class clazz = value.getClass(); clazz != null && clazz != Object.class; clazz = clazz.getSuperclass() ) {
+                for (Field field : clazz.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if( Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic() ) {
+                        continue;
+                    }
+                    sb.append(field.getName()).append('=');
+                    try {
+                        field.setAccessible(true);
+                        fingerprint(field.get(value), sb, depth + 1);
+                    } catch (Exception e) {
+                        sb.append('?');
+                    }
+                    sb.append(';');
+                }
+            }
+            sb.append('}');
+        }
+    }
+
+}
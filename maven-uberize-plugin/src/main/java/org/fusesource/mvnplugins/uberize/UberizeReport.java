@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.fusesource.mvnplugins.uberize;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Collects the provenance of the uber jar entries while the uber jar is built:
+ * the overlapping sources which got discarded and the transformers which
+ * modified each entry.  It's written as a JSON document once the uber jar
+ * is done, listing every entry of the uber jar with the jar it came from.
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+class UberizeReport {
+
+    static class Duplicate {
+        final File source;
+        final boolean identical;
+
+        Duplicate(File source, boolean identical) {
+            this.source = source;
+            this.identical = identical;
+        }
+    }
+
+    static class Record {
+        final ArrayList<String> transformers = new ArrayList<String>(1);
+        final ArrayList<Duplicate> duplicates = new ArrayList<Duplicate>(1);
+
+        void addAll(Record other) {
+            for (String transformer : other.transformers) {
+                if( !transformers.contains(transformer) ) {
+                    transformers.add(transformer);
+                }
+            }
+            duplicates.addAll(other.duplicates);
+        }
+    }
+
+    private final HashMap<String, Record> records = new HashMap<String, Record>();
+
+    private Record record(String path) {
+        Record rc = records.get(path);
+        if( rc == null ) {
+            rc = new Record();
+            records.put(path, rc);
+        }
+        return rc;
+    }
+
+    /**
+     * Records a source of an entry which was discarded in favor of an other one.
+     *
+     * @param path
+     * @param duplicate
+     * @param identical if it had the same content as the source which was picked.
+     */
+    synchronized void duplicate(String path, File duplicate, boolean identical) {
+        record(path).duplicates.add(new Duplicate(duplicate, identical));
+    }
+
+    /**
+     * Compares the entries before and after a transformer ran, and records that the
+     * transformer modified the entries which changed.
+     *
+     * @param transformer
+     * @param before
+     * @param after
+     */
+    synchronized void transformed(String transformer, Map<String, UberEntry> before, Map<String, UberEntry> after) {
+        for (UberEntry entry : after.values()) {
+            if( before.get(entry.getPath()) != entry ) {
+                Record record = record(entry.getPath());
+                inherit(record, entry);
+                if( !record.transformers.contains(transformer) ) {
+                    record.transformers.add(transformer);
+                }
+            }
+        }
+    }
+
+    /**
+     * If the entry was moved or aggregated from other paths, what happened to
+     * it at those paths gets carried over.
+     */
+    private void inherit(Record record, UberEntry entry) {
+        HashSet<String> visited = new HashSet<String>();
+        visited.add(entry.getPath());
+        ArrayList<UberEntry> history = new ArrayList<UberEntry>();
+        history.add(entry);
+        for (int i = 0; i < history.size(); i++) {
+            List<UberEntry> previous = history.get(i).getAllPrevious();
+            if( previous == null ) {
+                continue;
+            }
+            for (UberEntry p : previous) {
+                history.add(p);
+                if( visited.add(p.getPath()) ) {
+                    Record other = records.get(p.getPath());
+                    if( other != null ) {
+                        record.addAll(other);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the report.
+     *
+     * @param file
+     * @param uberJar
+     * @param tree the entries of the uber jar
+     * @param uberizer used to find the jars the entries come from
+     * @throws IOException
+     */
+    synchronized void write(File file, File uberJar, TreeMap<String, UberEntry> tree, Uberizer uberizer) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+        try {
+            out.write("{\n  \"uberJar\": ");
+            quote(out, uberJar.getPath());
+            out.write(",\n  \"entries\": [");
+            boolean first = true;
+            for (UberEntry entry : tree.values()) {
+                out.write(first ? "\n" : ",\n");
+                first = false;
+                out.write("    {\"path\": ");
+                quote(out, entry.getPath());
+                out.write(", \"source\": ");
+                quote(out, describe(uberizer, entry.getSources().get(0)));
+                Record record = records.get(entry.getPath());
+                if( record != null && !record.transformers.isEmpty() ) {
+                    out.write(", \"transformers\": [");
+                    for (int i = 0; i < record.transformers.size(); i++) {
+                        if( i > 0 ) {
+                            out.write(", ");
+                        }
+                        quote(out, record.transformers.get(i));
+                    }
+                    out.write("]");
+                }
+                if( record != null && !record.duplicates.isEmpty() ) {
+                    out.write(", \"duplicates\": [");
+                    for (int i = 0; i < record.duplicates.size(); i++) {
+                        Duplicate duplicate = record.duplicates.get(i);
+                        out.write(i > 0 ? ", {\"source\": " : "{\"source\": ");
+                        quote(out, describe(uberizer, duplicate.source));
+                        out.write(", \"identical\": ");
+                        out.write(String.valueOf(duplicate.identical));
+                        out.write("}");
+                    }
+                    out.write("]");
+                }
+                out.write("}");
+            }
+            out.write("\n  ]\n}\n");
+        } finally {
+            IOUtil.close(out);
+        }
+    }
+
+    private static String describe(Uberizer uberizer, File source) {
+        File jar = uberizer.getOriginalJar(source);
+        return (jar != null ? jar : source).getPath();
+    }
+
+    static void quote(Writer out, String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.write("\\\"");
+                    break;
+                case '\\':
+                    out.write("\\\\");
+                    break;
+                case '\n':
+                    out.write("\\n");
+                    break;
+                case '\r':
+                    out.write("\\r");
+                    break;
+                case '\t':
+                    out.write("\\t");
+                    break;
+                default:
+                    if( c < 0x20 ) {
+                        String hex = Integer.toHexString(c);
+                        out.write("\\u0000".substring(0, 6 - hex.length()));
+                        out.write(hex);
+                    } else {
+                        out.write(c);
+                    }
+            }
+        }
+        out.write('"');
+    }
+
+}
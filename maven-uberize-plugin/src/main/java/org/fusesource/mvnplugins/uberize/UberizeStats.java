@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.fusesource.mvnplugins.uberize;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * How long each stage of an uberize run took and how much data it went
+ * through.  The stages are the reading of the source jars, each of the
+ * transformers, the picking of a source for the overlapping entries and
+ * the writing of the uber jar.
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+public class UberizeStats {
+
+    public static class Stage {
+        private final String name;
+        private final AtomicLong time = new AtomicLong();
+        private final AtomicLong bytesRead = new AtomicLong();
+        private final AtomicLong bytesWritten = new AtomicLong();
+        private final AtomicInteger entries = new AtomicInteger();
+        private final AtomicInteger duplicates = new AtomicInteger();
+        private long workDirSize;
+
+        Stage(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the wall time of the stage in milliseconds.
+         */
+        public long getTime() {
+            return time.get() / 1000000;
+        }
+
+        /**
+         * @return the uncompressed size of the entry data the stage read.
+         */
+        public long getBytesRead() {
+            return bytesRead.get();
+        }
+
+        /**
+         * @return how much data the stage wrote to the work directory, or to
+         *         the uber jar for the write stage.
+         */
+        public long getBytesWritten() {
+            return bytesWritten.get();
+        }
+
+        /**
+         * @return how many entries the stage read, modified or wrote.
+         */
+        public int getEntries() {
+            return entries.get();
+        }
+
+        /**
+         * @return how many entries with overlapping sources got a source picked.
+         */
+        public int getDuplicates() {
+            return duplicates.get();
+        }
+
+        /**
+         * @return how much data the run had written to the work directory when
+         *         the stage finished.  Since files are not deleted while the uber
+         *         jar is built, the last stage has the peak size.
+         */
+        public long getWorkDirSize() {
+            return workDirSize;
+        }
+
+        void time(long nanos) {
+            time.addAndGet(nanos);
+        }
+
+        void read(long bytes) {
+            bytesRead.addAndGet(bytes);
+        }
+
+        void written(long bytes) {
+            bytesWritten.addAndGet(bytes);
+        }
+
+        void entries(int count) {
+            entries.addAndGet(count);
+        }
+
+        void duplicate() {
+            duplicates.incrementAndGet();
+        }
+    }
+
+    private final ArrayList<Stage> stages = new ArrayList<Stage>();
+    private long workDirSize;
+
+    synchronized Stage stage(String name) {
+        Stage rc = new Stage(name);
+        stages.add(rc);
+        return rc;
+    }
+
+    /**
+     * Adds what the stage wrote to the work directory to the work directory size.
+     */
+    synchronized void finish(Stage stage, boolean toWorkDir) {
+        if( toWorkDir ) {
+            workDirSize += stage.getBytesWritten();
+        }
+        stage.workDirSize = workDirSize;
+    }
+
+    public synchronized List<Stage> getStages() {
+        return new ArrayList<Stage>(stages);
+    }
+
+    /**
+     * @return the sum of the stage wall times in milliseconds.  It can be more than
+     *         the wall time of the run since transformers can run concurrently.
+     */
+    public synchronized long getTime() {
+        long rc = 0;
+        for (Stage stage : stages) {
+            rc += stage.time.get();
+        }
+        return rc / 1000000;
+    }
+
+    /**
+     * @return a table of the stats, one line per stage.
+     */
+    public List<String> toTable() {
+        List<Stage> stages = getStages();
+        int width = "Stage".length();
+        for (Stage stage : stages) {
+            width = Math.max(width, stage.getName().length());
+        }
+        ArrayList<String> rc = new ArrayList<String>();
+        rc.add(row(width, "Stage", "Time (ms)", "Entries", "Duplicates", "Read", "Written", "Work dir"));
+        for (Stage stage : stages) {
+            rc.add(row(width, stage.getName(), String.valueOf(stage.getTime()), String.valueOf(stage.getEntries()),
+                    String.valueOf(stage.getDuplicates()), formatBytes(stage.getBytesRead()),
+                    formatBytes(stage.getBytesWritten()), formatBytes(stage.getWorkDirSize())));
+        }
+        return rc;
+    }
+
+    private static String row(int width, String name, String... columns) {
+        StringBuilder rc = new StringBuilder(name);
+        pad(rc, width);
+        for (String column : columns) {
+            rc.append("  ");
+            pad(rc, rc.length() + 10 - column.length());
+            rc.append(column);
+        }
+        return rc.toString();
+    }
+
+    private static void pad(StringBuilder sb, int length) {
+        while( sb.length() < length ) {
+            sb.append(' ');
+        }
+    }
+
+    static String formatBytes(long bytes) {
+        if( bytes < 1024 ) {
+            return bytes + " B";
+        }
+        if( bytes < 1024 * 1024 ) {
+            return (bytes / 1024) + " KB";
+        }
+        return (bytes / (1024 * 1024)) + " MB";
+    }
+
+    /**
+     * Writes the stats as a JSON document.
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void write(File file) throws IOException {
+        file.getParentFile().mkdirs();
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+        try {
+            out.write("{\n  \"time\": " + getTime() + ",\n  \"stages\": [");
+            boolean first = true;
+            for (Stage stage : getStages()) {
+                out.write(first ? "\n" : ",\n");
+                first = false;
+                out.write("    {\"name\": ");
+                UberizeReport.quote(out, stage.getName());
+                out.write(", \"time\": " + stage.getTime());
+                out.write(", \"entries\": " + stage.getEntries());
+                out.write(", \"duplicates\": " + stage.getDuplicates());
+                out.write(", \"bytesRead\": " + stage.getBytesRead());
+                out.write(", \"bytesWritten\": " + stage.getBytesWritten());
+                out.write(", \"workDirSize\": " + stage.getWorkDirSize() + "}");
+            }
+            out.write("\n  ]\n}\n");
+        } finally {
+            IOUtil.close(out);
+        }
+    }
+
+}
@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
 
 /**
  * @author Jason van Zyl
@@ -69,4 +70,109 @@ public interface Uberizer {
      */
     public HashMap<String, String>  getClassRelocations();
 
+    /**
+     * When streaming, the source jars are not extracted to the work directory.
+     * The uber entry sources will be {@link JarEntrySource} files which get
+     * streamed straight from the source jars into the uber jar.  Only the files
+     * that transformers generate will be written to the work directory.
+     *
+     * @param streaming
+     */
+    void setStreaming(boolean streaming);
+
+    /**
+     * Sets the size of the thread pool the uberizer runs it's tasks on: reading
+     * the source jars, the concurrent work of the transformers and compressing
+     * the uber jar entries.  It also bounds how many entries get compressed ahead
+     * of the uber jar writer.  A value of 0 or less will use one thread per
+     * available processor.
+     *
+     * @param threads
+     */
+    void setThreads(int threads);
+
+    /**
+     * When true and the JVM supports virtual threads (Java 21 or newer), every
+     * task the uberizer runs gets it's own virtual thread instead of running
+     * on a pool of {@link #setThreads(int)} threads.  The tasks are mostly
+     * I/O bound, reading the source jars and writing the entries.
+     *
+     * @param virtualThreads
+     */
+    void setVirtualThreads(boolean virtualThreads);
+
+    /**
+     * Sets the executor the uberizer runs it's tasks on instead of creating
+     * one for each uberize run.  The uberizer does not shut it down.
+     *
+     * @param executor the executor to use or null to let the uberizer create one.
+     */
+    void setExecutor(ExecutorService executor);
+
+    /**
+     * Transformers can use this executor to process entries concurrently,
+     * but they must only modify the tree from the thread that called them.
+     * The extraction and the writing of the uber jar also run on it.
+     *
+     * @return the executor of the current uberize run, or when the uberizer
+     *         is not running, the executor it was configured to share or null.
+     */
+    ExecutorService getExecutor();
+
+    /**
+     * Transformers can use this to bound how many tasks they keep in flight
+     * on the {@link #getExecutor()}.
+     *
+     * @return the number of threads the uberizer runs it's tasks on.
+     */
+    int getThreadCount();
+
+    /**
+     * When incremental, the work directory is not cleaned before the uber
+     * jar is built.  The entries extracted from source jars which did not
+     * change since the previous run are reused, as are the files generated
+     * by transformers which were configured the same way.
+     *
+     * @param incremental
+     */
+    void setIncremental(boolean incremental);
+
+    /**
+     * When true, a <code>&lt;uber jar name&gt;-report.json</code> document listing
+     * where each entry of the uber jar came from, which transformers modified it and
+     * which overlapping sources were discarded is written to the work directory.
+     *
+     * @param report
+     */
+    void setReport(boolean report);
+
+    /**
+     * Transformers can use this to avoid regenerating a file in an incremental
+     * run.  It also records the sources of the target for the next run, so the
+     * transformer must (re)generate the target when this returns false.
+     *
+     * @param target a file the transformer generates in it's work directory
+     * @param sources the files the target gets generated from
+     * @return true if the target was generated from the same sources by the previous run.
+     * @throws IOException
+     */
+    boolean isUpToDate(File target, List<File> sources) throws IOException;
+
+    /**
+     * @return the timings and the amount of data processed by each stage of the
+     *         last uberize run, or null if it has not run yet.
+     */
+    UberizeStats getStats();
+
+    /**
+     * Finds the source jar that an uber entry source came from.  Files
+     * generated by transformers are traced back through the sources they
+     * were reported to be generated from by {@link #isUpToDate(File, List)}.
+     *
+     * @param source
+     * @return the source jar or null if the source did not come from a single
+     *         source jar, like an aggregation of many sources.
+     */
+    File getOriginalJar(File source);
+
 }
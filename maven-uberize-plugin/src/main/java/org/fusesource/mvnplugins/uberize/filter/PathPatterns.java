@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.fusesource.mvnplugins.uberize.filter;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.regex.Pattern;
+
+/**
+ * A set of Ant style path patterns compiled so that a path can be matched
+ * against all of them at once.  It matches paths like
+ * <code>SelectorUtils.matchPath</code> does, but the patterns are only parsed
+ * once.
+ * <p>
+ * The patterns are stored in a trie keyed by their leading literal path
+ * segments.  The rest of the patterns, starting at the first segment
+ * with a wildcard, are compiled into a single regular expression at the
+ * trie node.  Matching a path walks down the trie following the path's
+ * segments and only evaluates the expressions of the nodes along the way.
+ * </p>
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+public class PathPatterns {
+
+    private static final char SEPARATOR = File.separatorChar;
+    private static final String SEGMENT_CHAR = "[^" + (SEPARATOR == '\\' ? "\\\\" : String.valueOf(SEPARATOR)) + "]";
+    private static final String SEGMENT_END = Pattern.quote(String.valueOf(SEPARATOR));
+
+    private final boolean caseSensitive;
+    private final Node relative = new Node();
+    private final Node absolute = new Node();
+    private final int size;
+
+    static class Node {
+        final HashMap<String, Node> children = new HashMap<String, Node>();
+        ArrayList<String> expressions;
+        Pattern pattern;
+        boolean terminal;
+
+        Node child(String segment) {
+            Node rc = children.get(segment);
+            if( rc == null ) {
+                rc = new Node();
+                children.put(segment, rc);
+            }
+            return rc;
+        }
+
+        void compile() {
+            if( expressions != null ) {
+                StringBuilder sb = new StringBuilder();
+                for (String expression : expressions) {
+                    if( sb.length() > 0 ) {
+                        sb.append('|');
+                    }
+                    sb.append("(?:").append(expression).append(')');
+                }
+                pattern = Pattern.compile(sb.toString(), Pattern.DOTALL);
+                expressions = null;
+            }
+            for (Node child : children.values()) {
+                child.compile();
+            }
+        }
+    }
+
+    /**
+     * @param patterns the patterns as strings
+     * @param caseSensitive
+     */
+    public PathPatterns(Collection patterns, boolean caseSensitive) {
+        this.caseSensitive = caseSensitive;
+        int count = 0;
+        if( patterns != null ) {
+            for (Iterator i = patterns.iterator(); i.hasNext();) {
+                add((String) i.next());
+                count++;
+            }
+        }
+        this.size = count;
+        relative.compile();
+        absolute.compile();
+    }
+
+    /**
+     * @return true if there are no patterns.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void add(String pattern) {
+        if( !caseSensitive ) {
+            pattern = toUpperCase(pattern);
+        }
+        Node node = pattern.length() > 0 && pattern.charAt(0) == SEPARATOR ? absolute : relative;
+        ArrayList<String> segments = tokenize(pattern);
+        int i = 0;
+        for (; i < segments.size(); i++) {
+            String segment = segments.get(i);
+            if( segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0 ) {
+                break;
+            }
+            node = node.child(segment);
+        }
+        if( i == segments.size() ) {
+            node.terminal = true;
+            return;
+        }
+
+        // Each path segment the expression matches is followed by a separator.
+        StringBuilder sb = new StringBuilder();
+        for (; i < segments.size(); i++) {
+            String segment = segments.get(i);
+            if( segment.equals("**") ) {
+                sb.append("(?:").append(SEGMENT_CHAR).append("+").append(SEGMENT_END).append(")*");
+            } else {
+                for (int j = 0; j < segment.length(); j++) {
+                    char c = segment.charAt(j);
+                    if( c == '*' ) {
+                        sb.append(SEGMENT_CHAR).append('*');
+                    } else if( c == '?' ) {
+                        sb.append(SEGMENT_CHAR);
+                    } else {
+                        sb.append(Pattern.quote(String.valueOf(c)));
+                    }
+                }
+                sb.append(SEGMENT_END);
+            }
+        }
+        if( node.expressions == null ) {
+            node.expressions = new ArrayList<String>();
+        }
+        node.expressions.add(sb.toString());
+    }
+
+    /**
+     * @param path
+     * @return true if the path matches any of the patterns.
+     */
+    public boolean matches(String path) {
+        if( size == 0 ) {
+            return false;
+        }
+        if( !caseSensitive ) {
+            path = toUpperCase(path);
+        }
+        Node node = path.length() > 0 && path.charAt(0) == SEPARATOR ? absolute : relative;
+        ArrayList<String> segments = tokenize(path);
+        for (int i = 0; ; i++) {
+            if( node.pattern != null && node.pattern.matcher(join(segments, i)).matches() ) {
+                return true;
+            }
+            if( i == segments.size() ) {
+                return node.terminal;
+            }
+            node = node.children.get(segments.get(i));
+            if( node == null ) {
+                return false;
+            }
+        }
+    }
+
+    private static String join(ArrayList<String> segments, int start) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = start; i < segments.size(); i++) {
+            sb.append(segments.get(i)).append(SEPARATOR);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Splits the path into it's segments, skipping empty segments
+     * like a StringTokenizer would.
+     */
+    private static ArrayList<String> tokenize(String path) {
+        ArrayList<String> rc = new ArrayList<String>();
+        int start = 0;
+        for (int i = 0; i <= path.length(); i++) {
+            if( i == path.length() || path.charAt(i) == SEPARATOR ) {
+                if( i > start ) {
+                    rc.add(path.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+        return rc;
+    }
+
+    /**
+     * Like SelectorUtils, the case is ignored by comparing the characters upper cased
+     * one at a time, so the result does not depend on the default locale.
+     */
+    private static String toUpperCase(String value) {
+        char[] chars = value.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toUpperCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+}
@@ -19,10 +19,7 @@ package org.fusesource.mvnplugins.uberize.filter;
  * under the License.
  */
 
-import org.codehaus.plexus.util.SelectorUtils;
-
 import java.io.File;
-import java.util.Iterator;
 import java.util.Set;
 
 /**
@@ -37,11 +34,17 @@ public class SimpleFilter
 
     private Set excludes;
 
+    private PathPatterns includePatterns;
+
+    private PathPatterns excludePatterns;
+
     public SimpleFilter( File jar, Set includes, Set excludes )
     {
         this.jar = jar;
         this.includes = includes;
         this.excludes = excludes;
+        this.includePatterns = new PathPatterns( includes, true );
+        this.excludePatterns = new PathPatterns( excludes, true );
     }
 
     public boolean canFilter( File jar )
@@ -57,36 +60,16 @@ public class SimpleFilter
 
     private boolean isIncluded( String classFile )
     {
-        if ( includes == null || includes.size() == 0 )
+        if ( includePatterns.isEmpty() )
         {
             return true;
         }
 
-        return matchPaths( includes, classFile );
+        return includePatterns.matches( classFile );
     }
 
     private boolean isExcluded( String classFile )
     {
-        if ( excludes == null || excludes.size() == 0 )
-        {
-            return false;
-        }
-
-        return matchPaths( excludes, classFile );
-    }
-
-    private boolean matchPaths( Set patterns, String classFile )
-    {
-        for ( Iterator iterator = patterns.iterator(); iterator.hasNext(); )
-        {
-            String pattern = (String) iterator.next();
-
-            if ( SelectorUtils.matchPath( pattern, classFile ) )
-            {
-                return true;
-            }
-        }
-
-        return false;
+        return excludePatterns.matches( classFile );
     }
 }
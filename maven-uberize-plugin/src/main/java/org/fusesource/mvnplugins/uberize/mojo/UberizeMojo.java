@@ -51,6 +51,7 @@ import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.fusesource.mvnplugins.uberize.Transformer;
 import org.fusesource.mvnplugins.uberize.Uberizer;
+import org.fusesource.mvnplugins.uberize.UberizeStats;
 import org.fusesource.mvnplugins.uberize.transformer.ManifestEditor;
 import org.fusesource.mvnplugins.uberize.mojo.ArchiveFilter;
 import org.fusesource.mvnplugins.uberize.mojo.ArtifactSet;
@@ -300,6 +301,67 @@ public class UberizeMojo
      */
     private String additionalScopes;
 
+    /**
+     * When true, the dependency jars are not extracted to the work directory.  The jar
+     * entries are streamed straight from the dependency jars into the uber jar and only the
+     * entries which get modified by transformers are written to the work directory.
+     * Custom transformers must read entry sources using
+     * <code>DefaultUberizer.openInputStream(File)</code> when this is enabled.
+     *
+     * @parameter expression="${uberizeStreaming}" default-value="false"
+     */
+    private boolean streaming;
+
+    /**
+     * The size of the thread pool the uberize tasks run on: reading the dependency
+     * jars, relocating the classes, processing the entries of the transformers and
+     * compressing the uber jar entries.  It also bounds how many entries get compressed
+     * ahead of the uber jar writer.  When set to 0, one thread per available processor
+     * is used.  When <code>virtualThreads</code> is in effect, the tasks run on virtual
+     * threads instead and this only bounds the entries compressed ahead of the writer.
+     *
+     * @parameter expression="${uberizeThreads}" default-value="0"
+     */
+    private int threads;
+
+    /**
+     * When true and the build runs on Java 21 or newer, every uberize task runs on it's
+     * own virtual thread instead of on the pool of <code>threads</code> threads.  On older
+     * JVMs the thread pool is used.  Off by default, since it lets far more tasks run at
+     * once than the thread pool does.
+     *
+     * @parameter expression="${uberizeVirtualThreads}" default-value="false"
+     */
+    private boolean virtualThreads;
+
+    /**
+     * When true, the work directory is not cleaned between builds.  The entries of
+     * the dependency jars which did not change since the previous build are not extracted
+     * again, and the classes the class shader relocated from unchanged sources are reused.
+     * Each uber jar then gets it's own sub directory of the work directory, named after it,
+     * so that the main and the sources jar builds don't undo each other's work.
+     *
+     * @parameter expression="${uberizeIncremental}" default-value="false"
+     */
+    private boolean incremental;
+
+    /**
+     * When true, a <code>&lt;uber jar name&gt;-report.json</code> document listing where each
+     * entry of the uber jar came from, which transformers modified it and which overlapping
+     * sources were discarded is written to the work directory.
+     *
+     * @parameter expression="${uberizeReport}" default-value="false"
+     */
+    private boolean report;
+
+    /**
+     * When set, the timings and the amount of data processed by each stage of building
+     * the uber jar are written to this file as a JSON document.  They are always logged.
+     *
+     * @parameter expression="${uberizeStatsFile}"
+     */
+    private File statsFile;
+
     /** @throws MojoExecutionException  */
     public void execute()
         throws MojoExecutionException
@@ -373,11 +435,22 @@ public class UberizeMojo
 
             List<Transformer> transformers = getTransformers();
 
-            uberizer.uberize(workDirectory, artifacts, outputJar, filters, transformers);
+            uberizer.setStreaming(streaming);
+            uberizer.setThreads(threads);
+            uberizer.setVirtualThreads(virtualThreads);
+            uberizer.setIncremental(incremental);
+            uberizer.setReport(report);
+            uberizer.uberize(getWorkDirectory(outputJar), artifacts, outputJar, filters, transformers);
+            logStats( uberizer.getStats() );
+            if ( statsFile != null )
+            {
+                uberizer.getStats().write( statsFile );
+            }
 
             if ( createSourcesJar )
             {
-                uberizer.uberize(workDirectory, sourceArtifacts, sourcesJar, filters, transformers);
+                uberizer.uberize(getWorkDirectory(sourcesJar), sourceArtifacts, sourcesJar, filters, transformers);
+                logStats( uberizer.getStats() );
             }
 
             if ( uberArtifactAttached )
@@ -452,6 +525,24 @@ public class UberizeMojo
         }
     }
 
+    /**
+     * Incremental builds keep the work of each uber jar in it's own sub directory,
+     * so that the main and the sources jar builds don't overwrite each other's work.
+     */
+    private File getWorkDirectory( File uberJar )
+    {
+        return incremental ? new File( workDirectory, uberJar.getName() ) : workDirectory;
+    }
+
+    private void logStats( UberizeStats stats )
+    {
+        getLog().info( "Uberize stats:" );
+        for ( String line : stats.toTable() )
+        {
+            getLog().info( "  " + line );
+        }
+    }
+
     private void replaceFile( File oldFile, File newFile ) throws MojoExecutionException
     {
         getLog().info( "Replacing " + oldFile + " with " + newFile );
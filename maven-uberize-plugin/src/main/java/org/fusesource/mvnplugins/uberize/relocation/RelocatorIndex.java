@@ -0,0 +1,196 @@
+package org.fusesource.mvnplugins.uberize.relocation;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Finds the relocator to apply to a class name, path or descriptor without
+ * having to ask every relocator.  The patterns of the relocators are stored
+ * in a trie keyed by the characters of their path form, so only the
+ * relocators whose pattern is a prefix of the name get checked.  Like
+ * iterating the list of relocators, the first relocator in the list which
+ * can relocate the name wins.
+ * <p>
+ * The index is immutable once built, so it can be shared by concurrent
+ * remapping tasks.
+ * </p>
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+public class RelocatorIndex
+{
+    private static final int PATH = 1;
+    private static final int CLASS = 2;
+
+    private final Relocator[] relocators;
+    private final Node root = new Node();
+
+    static class Node
+    {
+        final HashMap<Character, Node> children = new HashMap<Character, Node>();
+        int[] relocators = new int[0];
+
+        Node child( char c )
+        {
+            Node rc = children.get( Character.valueOf( c ) );
+            if ( rc == null )
+            {
+                rc = new Node();
+                children.put( Character.valueOf( c ), rc );
+            }
+            return rc;
+        }
+
+        void add( int relocator )
+        {
+            int[] rc = new int[relocators.length + 1];
+            System.arraycopy( relocators, 0, rc, 0, relocators.length );
+            rc[relocators.length] = relocator;
+            relocators = rc;
+        }
+    }
+
+    public RelocatorIndex( List<Relocator> relocators )
+    {
+        this.relocators = relocators.toArray( new Relocator[relocators.size()] );
+        for ( int i = 0; i < this.relocators.length; i++ )
+        {
+            Node node = root;
+            // We can't look into other kinds of relocators, so they get checked for every name.
+            if ( this.relocators[i] instanceof SimpleRelocator )
+            {
+                String prefix = ( (SimpleRelocator) this.relocators[i] ).getPathPattern();
+                for ( int j = 0; j < prefix.length(); j++ )
+                {
+                    node = node.child( prefix.charAt( j ) );
+                }
+            }
+            node.add( i );
+        }
+    }
+
+    public boolean isEmpty()
+    {
+        return relocators.length == 0;
+    }
+
+    /**
+     * @param path a path or internal class name like <code>org/foo/Bar</code>
+     * @return the relocated path or the path if no relocator applies to it.
+     */
+    public String relocatePath( String path )
+    {
+        int i = find( path, 0, path.length(), PATH, relocators.length );
+        return i == relocators.length ? path : relocators[i].relocatePath( path );
+    }
+
+    /**
+     * @param clazz a class name like <code>org.foo.Bar</code>
+     * @return the relocated class name or the class name if no relocator applies to it.
+     */
+    public String relocateClass( String clazz )
+    {
+        int i = find( clazz, 0, clazz.length(), CLASS, relocators.length );
+        return i == relocators.length ? clazz : relocators[i].relocateClass( clazz );
+    }
+
+    /**
+     * Relocates a string constant which could hold a class name, a path or an
+     * array type descriptor.
+     *
+     * @param value
+     * @return the relocated value or the value if no relocator applies to it.
+     */
+    public String relocateValue( String value )
+    {
+        int i = find( value, 0, value.length(), CLASS | PATH, relocators.length );
+
+        // Is it an array descriptor like [[Lorg/foo/Bar; ?
+        int dimensions = 0;
+        while ( dimensions < value.length() && value.charAt( dimensions ) == '[' )
+        {
+            dimensions++;
+        }
+        if ( dimensions > 0 && value.length() > dimensions + 1 && value.charAt( dimensions ) == 'L'
+            && value.charAt( value.length() - 1 ) == ';' )
+        {
+            int j = find( value, dimensions + 1, value.length() - 1, CLASS | PATH, i );
+            if ( j < i )
+            {
+                String name = value.substring( dimensions + 1, value.length() - 1 );
+                Relocator r = relocators[j];
+                return value.substring( 0, dimensions + 1 )
+                    + ( r.canRelocatePath( name ) ? r.relocatePath( name ) : r.relocateClass( name ) ) + ';';
+            }
+        }
+
+        if ( i == relocators.length )
+        {
+            return value;
+        }
+        Relocator r = relocators[i];
+        return r.canRelocateClass( value ) ? r.relocateClass( value ) : r.relocatePath( value );
+    }
+
+    /**
+     * Walks the trie along the characters of <code>value[start, end)</code> to
+     * find the first relocator, before the limit, which can relocate it.
+     *
+     * @return the index of the relocator or the limit if there is none.
+     */
+    private int find( String value, int start, int end, int forms, int limit )
+    {
+        String name = null;
+        int best = limit;
+        Node node = root;
+        for ( int i = start; ; i++ )
+        {
+            int[] candidates = node.relocators;
+            for ( int j = 0; j < candidates.length && candidates[j] < best; j++ )
+            {
+                if ( name == null )
+                {
+                    name = start == 0 && end == value.length() ? value : value.substring( start, end );
+                }
+                Relocator r = relocators[candidates[j]];
+                if ( ( ( forms & CLASS ) != 0 && r.canRelocateClass( name ) )
+                    || ( ( forms & PATH ) != 0 && r.canRelocatePath( name ) ) )
+                {
+                    best = candidates[j];
+                    break;
+                }
+            }
+            if ( i == end )
+            {
+                break;
+            }
+            // Class names are matched against the path form of the patterns.
+            char c = value.charAt( i );
+            node = node.children.get( Character.valueOf( c == '.' ? '/' : c ) );
+            if ( node == null )
+            {
+                break;
+            }
+        }
+        return best;
+    }
+}
@@ -24,7 +24,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
-import org.codehaus.plexus.util.SelectorUtils;
+import org.fusesource.mvnplugins.uberize.filter.PathPatterns;
 
 /**                           3
  * @author Jason van Zyl
@@ -37,7 +37,7 @@ public class SimpleRelocator
     private String pathPattern;
     private String shadedPattern;
     private String shadedPathPattern;
-    private Set excludes;
+    private PathPatterns excludes;
 
     public SimpleRelocator( String patt, String shadedPattern, List excludes )
     {
@@ -57,44 +57,47 @@ public class SimpleRelocator
 
         if ( excludes != null && !excludes.isEmpty() )
         {
-            this.excludes = new LinkedHashSet();
+            Set classExcludes = new LinkedHashSet();
 
             for ( Iterator i = excludes.iterator(); i.hasNext(); )
             {
                 String e = (String) i.next();
 
                 String classExclude = e.replace( '.', '/' );
-                this.excludes.add( classExclude );
+                classExcludes.add( classExclude );
 
                 if ( classExclude.endsWith( "/*" ) )
                 {
                     String packageExclude = classExclude.substring( 0, classExclude.lastIndexOf( '/' ) );
-                    this.excludes.add( packageExclude );
+                    classExcludes.add( packageExclude );
                 }
             }
+
+            this.excludes = new PathPatterns( classExcludes, true );
         }
     }
 
+    /**
+     * @return the pattern in it's path form, all the paths this relocator
+     *         can relocate start with it.
+     */
+    String getPathPattern()
+    {
+        return pathPattern;
+    }
+
     public boolean canRelocatePath( String path )
     {
         if ( path.endsWith( ".class" ) )
         {
             path = path.substring( 0, path.length() - 6 );
         }
-        if ( excludes != null )
+        if ( !path.startsWith( pathPattern ) )
         {
-            for ( Iterator i = excludes.iterator(); i.hasNext(); )
-            {
-                String exclude = (String) i.next();
-
-                if ( SelectorUtils.matchPath( exclude, path, true ) )
-                {
-                    return false;
-                }
-            }
+            return false;
         }
 
-        return path.startsWith( pathPattern );
+        return excludes == null || !excludes.matches( path );
     }
 
     public boolean canRelocateClass( String clazz )
@@ -104,11 +107,25 @@ public class SimpleRelocator
 
     public String relocatePath( String path )
     {
-        return path.replaceFirst( pathPattern, shadedPathPattern );
+        return replaceFirst( path, pathPattern, shadedPathPattern );
     }
 
     public String relocateClass( String clazz )
     {
-        return clazz.replaceFirst( pattern, shadedPattern );
+        return replaceFirst( clazz, pattern, shadedPattern );
+    }
+
+    /**
+     * Replaces the first occurrence of the literal target, unlike
+     * <code>String.replaceFirst</code> it does not compile a regex each time.
+     */
+    private static String replaceFirst( String value, String target, String replacement )
+    {
+        int index = value.indexOf( target );
+        if ( index < 0 )
+        {
+            return value;
+        }
+        return value.substring( 0, index ) + replacement + value.substring( index + target.length() );
     }
 }
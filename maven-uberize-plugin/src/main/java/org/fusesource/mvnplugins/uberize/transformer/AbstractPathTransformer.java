@@ -3,11 +3,14 @@ package org.fusesource.mvnplugins.uberize.transformer;
 import org.fusesource.mvnplugins.uberize.UberEntry;
 import org.fusesource.mvnplugins.uberize.DefaultUberizer;
 import org.fusesource.mvnplugins.uberize.Uberizer;
-import org.fusesource.mvnplugins.uberize.Transformer;
+import org.fusesource.mvnplugins.uberize.ScopedTransformer;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.ArrayList;
 import java.util.Map.Entry;
 
@@ -36,29 +39,64 @@ import java.util.Map.Entry;
  *
  * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
  */
-abstract public class AbstractPathTransformer extends Resources implements Transformer
+abstract public class AbstractPathTransformer extends Resources implements ScopedTransformer
 {
 
-    public void process(Uberizer uberizer, File workDir, TreeMap<String, UberEntry> uberEntries) throws IOException {
-        // process all the entries that match.
-        // this can be probably optimized so we don't iterate through all the entries to find matches.
-        for (UberEntry uberEntry : new ArrayList<UberEntry>(uberEntries.values())) {
+    public void process(final Uberizer uberizer, File workDir, TreeMap<String, UberEntry> uberEntries) throws IOException {
+        // process all the entries that match.  The uberizer only passes
+        // us the entries which are in the scope of the include patterns.
+        // The entries of concurrent transformers get processed concurrently,
+        // but the tree is only updated from this thread.
+        ArrayList<UberEntry> matched = new ArrayList<UberEntry>();
+        ArrayList<Future<UberEntry>> futures = new ArrayList<Future<UberEntry>>();
+        ExecutorService executor = uberizer != null && isConcurrent() ? uberizer.getExecutor() : null;
+        for (final UberEntry uberEntry : new ArrayList<UberEntry>(uberEntries.values())) {
             if( uberEntry.getSources().isEmpty() ) {
                 continue;
             }
             final boolean match = matches(uberEntry.getPath());
             if (match) {
-                File target = DefaultUberizer.prepareFile(workDir, uberEntry.getPath());
-                UberEntry modEntry = process(uberizer, uberEntry, target);
-                if( modEntry !=null ) {
-                    uberEntries.put(uberEntry.getPath(), modEntry);
-                } else {
-                    uberEntries.remove(uberEntry.getPath());
-                }
+                final File target = DefaultUberizer.prepareFile(workDir, uberEntry.getPath());
+                matched.add(uberEntry);
+                futures.add(DefaultUberizer.submit(executor, new Callable<UberEntry>() {
+                    public UberEntry call() throws Exception {
+                        return process(uberizer, uberEntry, target);
+                    }
+                }));
             }
         }
+        for (int i = 0; i < matched.size(); i++) {
+            UberEntry uberEntry = matched.get(i);
+            UberEntry modEntry = DefaultUberizer.get(futures.get(i));
+            if( modEntry !=null ) {
+                uberEntries.put(uberEntry.getPath(), modEntry);
+            } else {
+                uberEntries.remove(uberEntry.getPath());
+            }
+        }
+    }
+
+    /**
+     * Sub classes whose {@link #process(Uberizer, UberEntry, File)} can safely
+     * be called concurrently should override this method to return true.
+     *
+     * @return false so that the entries get processed one at a time.
+     */
+    protected boolean isConcurrent() {
+        return false;
     }
 
+    /**
+     * Processes one of the matching entries.  If {@link #isConcurrent()} returns
+     * true, it gets called concurrently for different entries, so it should not
+     * wait for other tasks of the uberizer's executor.
+     *
+     * @param uberizer
+     * @param entry
+     * @param target the file in the work directory the entry can be transformed to
+     * @return the transformed entry or null to remove the entry.
+     * @throws IOException
+     */
     abstract protected UberEntry process(Uberizer uberizer, UberEntry entry, File target) throws IOException;
 
 }
\ No newline at end of file
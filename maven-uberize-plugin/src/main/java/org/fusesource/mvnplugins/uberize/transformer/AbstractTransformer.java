@@ -23,9 +23,13 @@ import java.io.IOException;
 import java.io.File;
 import java.util.TreeMap;
 import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.Map.Entry;
 
-import org.fusesource.mvnplugins.uberize.Transformer;
+import org.fusesource.mvnplugins.uberize.PathScope;
+import org.fusesource.mvnplugins.uberize.ScopedTransformer;
 import org.fusesource.mvnplugins.uberize.UberEntry;
 import org.fusesource.mvnplugins.uberize.DefaultUberizer;
 import org.fusesource.mvnplugins.uberize.Uberizer;
@@ -35,28 +39,66 @@ import org.fusesource.mvnplugins.uberize.Uberizer;
  * 
  * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
  */
-abstract public class AbstractTransformer implements Transformer
+abstract public class AbstractTransformer implements ScopedTransformer
 {
-    public void process(Uberizer uberizer, File workDir, TreeMap<String, UberEntry> uberEntries) throws IOException {
-        for (UberEntry entry : new ArrayList<UberEntry>(uberEntries.values())) {
+    public void process(final Uberizer uberizer, File workDir, TreeMap<String, UberEntry> uberEntries) throws IOException {
+        // The entries of concurrent transformers get processed concurrently,
+        // but the tree is only updated from this thread.
+        ArrayList<String> paths = new ArrayList<String>();
+        ArrayList<Future<UberEntry>> futures = new ArrayList<Future<UberEntry>>();
+        ExecutorService executor = uberizer != null && isConcurrent() ? uberizer.getExecutor() : null;
+        for (final UberEntry entry : new ArrayList<UberEntry>(uberEntries.values())) {
             if( entry.getSources().isEmpty() ) {
                 continue;
             }
             String entryPath = entry.getPath();
             if (matches(entryPath)) {
-                File target = DefaultUberizer.prepareFile(workDir, entryPath);
-                UberEntry modEntry = process(uberizer, entry, target);
-                if( modEntry!=null ) {
-                    uberEntries.put(entryPath, modEntry);
-                } else {
-                    uberEntries.remove(entryPath);
-                }
+                final File target = DefaultUberizer.prepareFile(workDir, entryPath);
+                paths.add(entryPath);
+                futures.add(DefaultUberizer.submit(executor, new Callable<UberEntry>() {
+                    public UberEntry call() throws Exception {
+                        return process(uberizer, entry, target);
+                    }
+                }));
             }
         }
+        for (int i = 0; i < paths.size(); i++) {
+            String entryPath = paths.get(i);
+            UberEntry modEntry = DefaultUberizer.get(futures.get(i));
+            if( modEntry!=null ) {
+                uberEntries.put(entryPath, modEntry);
+            } else {
+                uberEntries.remove(entryPath);
+            }
+        }
+    }
+
+    /**
+     * Sub classes should narrow down the scope to the entries that
+     * {@link #matches(String)} could match.
+     *
+     * @return null so that all the entries are checked for a match.
+     */
+    public PathScope getScope() {
+        return null;
     }
 
     abstract protected boolean matches(String entryPath);
 
+    /**
+     * Sub classes whose {@link #process(Uberizer, UberEntry, File)} can safely
+     * be called concurrently should override this method to return true.
+     *
+     * @return false so that the entries get processed one at a time.
+     */
+    protected boolean isConcurrent() {
+        return false;
+    }
+
+    /**
+     * Processes one of the matching entries.  It gets called concurrently
+     * for different entries if {@link #isConcurrent()} returns true.
+     */
     abstract protected UberEntry process(Uberizer uberizer, UberEntry entry, File target) throws IOException;
 
 }
\ No newline at end of file
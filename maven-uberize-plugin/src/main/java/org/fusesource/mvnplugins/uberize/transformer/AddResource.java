@@ -24,7 +24,8 @@ import java.io.IOException;
 import java.util.TreeMap;
 
 import org.fusesource.mvnplugins.uberize.UberEntry;
-import org.fusesource.mvnplugins.uberize.Transformer;
+import org.fusesource.mvnplugins.uberize.PathScope;
+import org.fusesource.mvnplugins.uberize.ConcurrentTransformer;
 import org.fusesource.mvnplugins.uberize.Uberizer;
 
 /**
@@ -33,11 +34,19 @@ import org.fusesource.mvnplugins.uberize.Uberizer;
  *
  * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
  */
-public class AddResource implements Transformer {
+public class AddResource implements ConcurrentTransformer {
 
     String path;
     File file;
 
+    public PathScope getScope() {
+        PathScope rc = new PathScope();
+        if( path!=null ) {
+            rc.path(path);
+        }
+        return rc;
+    }
+
     public void process(Uberizer uberizer, File workDir, TreeMap<String, UberEntry> uberEntries) throws IOException {
         if( file!=null && file.exists() && path!=null ) {
             final UberEntry uberEntry = uberEntries.get(path);
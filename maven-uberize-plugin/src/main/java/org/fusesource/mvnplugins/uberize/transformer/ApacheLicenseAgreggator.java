@@ -19,7 +19,8 @@ package org.fusesource.mvnplugins.uberize.transformer;
  * under the License.
  */
 
-import org.fusesource.mvnplugins.uberize.Transformer;
+import org.fusesource.mvnplugins.uberize.PathScope;
+import org.fusesource.mvnplugins.uberize.ConcurrentTransformer;
 import org.fusesource.mvnplugins.uberize.UberEntry;
 import org.fusesource.mvnplugins.uberize.Uberizer;
 
@@ -34,12 +35,16 @@ import java.util.Map.Entry;
  *
  * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
  */
-public class ApacheLicenseAgreggator implements Transformer {
+public class ApacheLicenseAgreggator implements ConcurrentTransformer {
 
     private static final String LICENSE_PATH = "META-INF/LICENSE";
     private static final String LICENSE_TXT_PATH = "META-INF/LICENSE.txt";
 
 
+    public PathScope getScope() {
+        return new PathScope().pathIgnoringCase(LICENSE_PATH).pathIgnoringCase(LICENSE_TXT_PATH);
+    }
+
     public void process(Uberizer uberizer, File workDir, TreeMap<String, UberEntry> uberEntries) throws IOException {
         ArrayList<UberEntry> matches = new ArrayList<UberEntry>();
         for (Entry<String, UberEntry> entry : uberEntries.entrySet()) {
@@ -20,16 +20,15 @@ package org.fusesource.mvnplugins.uberize.transformer;
  */
 
 import org.fusesource.mvnplugins.uberize.DefaultUberizer;
-import org.fusesource.mvnplugins.uberize.Transformer;
+import org.fusesource.mvnplugins.uberize.PathScope;
+import org.fusesource.mvnplugins.uberize.ConcurrentTransformer;
 import org.fusesource.mvnplugins.uberize.UberEntry;
 import org.fusesource.mvnplugins.uberize.Uberizer;
 import org.codehaus.plexus.util.StringUtils;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
@@ -49,7 +48,7 @@ import java.util.ArrayList;
 /**
  * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
  */
-public class ApacheNoticeAgreggator implements Transformer {
+public class ApacheNoticeAgreggator implements ConcurrentTransformer {
 
     private static final String NOTICE_PATH = "META-INF/NOTICE";
     private static final String NOTICE_TXT_PATH = "META-INF/NOTICE.txt";
@@ -74,6 +73,10 @@ public class ApacheNoticeAgreggator implements Transformer {
     String copyright;
 
 
+    public PathScope getScope() {
+        return new PathScope().pathIgnoringCase(NOTICE_PATH).pathIgnoringCase(NOTICE_TXT_PATH);
+    }
+
     public void process(Uberizer uberizer, File workDir, TreeMap<String, UberEntry> uberEntries) throws IOException {
 
         Set<String> noticeSet = new LinkedHashSet<String>();
@@ -170,9 +173,9 @@ public class ApacheNoticeAgreggator implements Transformer {
     private void processFile(File file, Set<String> entries) throws IOException {
         BufferedReader reader;
         if (StringUtils.isNotEmpty(encoding)) {
-            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), encoding));
+            reader = new BufferedReader(new InputStreamReader(DefaultUberizer.openInputStream(file), encoding));
         } else {
-            reader = new BufferedReader(new FileReader(file));
+            reader = new BufferedReader(new InputStreamReader(DefaultUberizer.openInputStream(file)));
         }
 
         String line = reader.readLine();
@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.fusesource.mvnplugins.uberize.transformer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * Replaces all the occurrences of a set of class names in a text in a single
+ * pass.  The class names are compiled into an Aho-Corasick automaton, so the
+ * cost of a pass does not depend on how many class names get replaced.
+ * <p>
+ * A class name is only replaced when it is not part of a bigger class
+ * name, i.e. the characters around it are not letters, digits,
+ * <code>.</code>, <code>$</code> or <code>_</code>.  Replacing
+ * <code>test.Foo</code> in <code>com.myco.test.Foo</code> would be a bad thing.
+ * </p>
+ * <p>
+ * The text is streamed through, only the characters which could still be
+ * part of a class name are buffered.
+ * </p>
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+class ClassNameReplacer {
+
+    private static final char[] NO_CHARS = new char[0];
+    private static final Node[] NO_NODES = new Node[0];
+
+    static class Node {
+        // The transitions, sorted by character.
+        char[] chars = NO_CHARS;
+        Node[] next = NO_NODES;
+        Node fail;
+        // The longest suffix of this node which is a class name.
+        Node output;
+        String replacement;
+        int depth;
+
+        Node get(char c) {
+            int low = 0;
+            int high = chars.length - 1;
+            while( low <= high ) {
+                int mid = (low + high) >>> 1;
+                char value = chars[mid];
+                if( value < c ) {
+                    low = mid + 1;
+                } else if( value > c ) {
+                    high = mid - 1;
+                } else {
+                    return next[mid];
+                }
+            }
+            return null;
+        }
+
+        Node add(char c) {
+            Node rc = get(c);
+            if( rc == null ) {
+                rc = new Node();
+                rc.depth = depth + 1;
+                int pos = 0;
+                while( pos < chars.length && chars[pos] < c ) {
+                    pos++;
+                }
+                char[] newChars = new char[chars.length + 1];
+                Node[] newNext = new Node[next.length + 1];
+                System.arraycopy(chars, 0, newChars, 0, pos);
+                System.arraycopy(next, 0, newNext, 0, pos);
+                newChars[pos] = c;
+                newNext[pos] = rc;
+                System.arraycopy(chars, pos, newChars, pos + 1, chars.length - pos);
+                System.arraycopy(next, pos, newNext, pos + 1, next.length - pos);
+                chars = newChars;
+                next = newNext;
+            }
+            return rc;
+        }
+    }
+
+    private final Node root = new Node();
+    private int maxLength;
+
+    /**
+     * @param replacements maps the class names to their replacements.
+     */
+    ClassNameReplacer(Map<String, String> replacements) {
+        for (Map.Entry<String, String> entry : replacements.entrySet()) {
+            String name = entry.getKey();
+            if( name.length() == 0 ) {
+                continue;
+            }
+            Node node = root;
+            for (int i = 0; i < name.length(); i++) {
+                node = node.add(name.charAt(i));
+            }
+            node.replacement = entry.getValue();
+            maxLength = Math.max(maxLength, name.length());
+        }
+
+        // Link up the failure transitions breadth first.
+        root.fail = root;
+        ArrayList<Node> queue = new ArrayList<Node>();
+        for (Node child : root.next) {
+            child.fail = root;
+            queue.add(child);
+        }
+        for (int i = 0; i < queue.size(); i++) {
+            Node node = queue.get(i);
+            node.output = node.fail.replacement != null ? node.fail : node.fail.output;
+            for (int j = 0; j < node.chars.length; j++) {
+                Node child = node.next[j];
+                child.fail = step(node.fail, node.chars[j]);
+                queue.add(child);
+            }
+        }
+    }
+
+    private Node step(Node node, char c) {
+        while( true ) {
+            Node rc = node.get(c);
+            if( rc != null ) {
+                return rc;
+            }
+            if( node == root ) {
+                return root;
+            }
+            node = node.fail;
+        }
+    }
+
+    /**
+     * @param text
+     * @return the text with the class names replaced, or the same text instance
+     *         if no class names occurred in it.
+     */
+    String replace(String text) {
+        try {
+            StringWriter writer = new StringWriter(text.length() + 64);
+            return replace(new StringReader(text), writer) ? writer.toString() : text;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Copies the text of the reader to the writer replacing the class names.
+     *
+     * @param reader
+     * @param writer if null, the reader is only read until the first class
+     *        name which needs to be replaced is found.
+     * @return true if a class name was replaced (or found).
+     * @throws IOException
+     */
+    boolean replace(Reader reader, Writer writer) throws IOException {
+        Window window = new Window(writer);
+        char[] buffer = new char[8192];
+        Node state = root;
+        int count;
+        while( (count = reader.read(buffer)) >= 0 ) {
+            for (int i = 0; i < count; i++) {
+                char c = buffer[i];
+                // The class names which end at the previous character can now be
+                // checked since we know which character follows them.
+                if( !isClassNameChar(c) && match(state, window) && writer == null ) {
+                    return true;
+                }
+                state = step(state, c);
+                window.append(c);
+            }
+            window.flush(maxLength);
+        }
+        if( match(state, window) && writer == null ) {
+            return true;
+        }
+        window.flush(0);
+        return window.replaced;
+    }
+
+    /**
+     * Replaces the longest class name which ends at the end of the
+     * window and starts on a boundary.
+     */
+    private boolean match(Node state, Window window) throws IOException {
+        Node match = state.replacement != null ? state : state.output;
+        for (; match != null; match = match.output) {
+            int start = window.end - match.depth;
+            if( start >= window.start && (start == 0 || !isClassNameChar(window.charAt(start - 1))) ) {
+                window.replace(start, match.replacement);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The part of the text which has been read but not written yet, plus the
+     * character which precedes it.
+     */
+    static class Window {
+        final Writer writer;
+        final StringBuilder pending = new StringBuilder();
+        // The positions in the text of the first pending character and the end of the text read so far.
+        int start;
+        int end;
+        char previous;
+        boolean replaced;
+
+        Window(Writer writer) {
+            this.writer = writer;
+        }
+
+        void append(char c) {
+            pending.append(c);
+            end++;
+        }
+
+        char charAt(int pos) {
+            return pos < start ? previous : pending.charAt(pos - start);
+        }
+
+        void replace(int from, String replacement) throws IOException {
+            replaced = true;
+            if( writer != null ) {
+                writer.write(pending.substring(0, from - start));
+                writer.write(replacement);
+            }
+            previous = pending.charAt(pending.length() - 1);
+            pending.setLength(0);
+            start = end;
+        }
+
+        /**
+         * Writes out the pending characters which can't be part of a class name
+         * anymore.
+         */
+        void flush(int keep) throws IOException {
+            int count = pending.length() - keep;
+            if( count > 0 ) {
+                if( writer != null ) {
+                    writer.write(pending.substring(0, count));
+                }
+                previous = pending.charAt(count - 1);
+                pending.delete(0, count);
+                start += count;
+            }
+        }
+    }
+
+    static boolean isClassNameChar(char c) {
+        return Character.isLetter(c) || Character.isDigit(c) || c == '.' || c == '$' || c == '_';
+    }
+
+}
@@ -19,14 +19,16 @@
 package org.fusesource.mvnplugins.uberize.transformer;
 
 import org.fusesource.mvnplugins.uberize.relocation.Relocator;
+import org.fusesource.mvnplugins.uberize.relocation.RelocatorIndex;
 import org.fusesource.mvnplugins.uberize.relocation.SimpleRelocator;
 import org.fusesource.mvnplugins.uberize.relocation.PackageRelocation;
-import org.fusesource.mvnplugins.uberize.Transformer;
+import org.fusesource.mvnplugins.uberize.PathScope;
+import org.fusesource.mvnplugins.uberize.ClassRelocationsTransformer;
 import org.fusesource.mvnplugins.uberize.UberEntry;
 import org.fusesource.mvnplugins.uberize.DefaultUberizer;
 import org.fusesource.mvnplugins.uberize.Uberizer;
+import org.codehaus.plexus.logging.AbstractLogEnabled;
 import org.codehaus.plexus.util.IOUtil;
-import org.codehaus.plexus.util.FileUtils;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
@@ -35,16 +37,25 @@ import org.objectweb.asm.commons.RemappingClassAdapter;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.FileOutputStream;
 import java.io.InputStream;
-import java.util.Iterator;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Collections;
 import java.util.List;
 import java.util.TreeMap;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.regex.Pattern;
-import java.util.Map.Entry;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Uses byte code manipulation to relocate java classes to a new package.  It can optionally
@@ -54,11 +65,37 @@ import java.util.Map.Entry;
  * @author Jason van Zyl
  * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
  */
-public class ClassShader implements Transformer {
-    
+public class ClassShader extends AbstractLogEnabled implements ClassRelocationsTransformer {
+
+    /**
+     * The maximum number of remapped names each of the remapper's memo
+     * caches hold.
+     */
+    private static final int MEMO_SIZE = 64 * 1024;
+
     public PackageRelocation[] relocations;
     public Resources resources;
 
+    /**
+     * When set, the relocated classes are cached in the <code>uberize-relocations</code>
+     * sub directory of this directory so that builds which relocate the same classes
+     * with the same relocations can reuse them.
+     * For example: <code>${user.home}/.m2/uberize-cache</code>
+     */
+    public File cacheDirectory;
+
+    /**
+     * The maximum size of the cache directory in megabytes.  The least recently
+     * used classes are evicted once it gets bigger.
+     */
+    public long cacheSize = 512;
+
+    /**
+     * The character encoding of the resources which get updated with the
+     * relocated class names.  Defaults to the platform encoding.
+     */
+    public String encoding;
+
     private List<Relocator> getRelocators()
     {
         List<Relocator> relocators = new ArrayList<Relocator>();
@@ -78,9 +115,26 @@ public class ClassShader implements Transformer {
     }
 
 
+    public boolean updatesClassRelocations() {
+        return true;
+    }
+
+    public PathScope getScope() {
+        PathScope rc = new PathScope().extension(".class");
+        if( resources!=null ) {
+            PathScope resourceScope = resources.getScope();
+            if( resourceScope==null ) {
+                return null;
+            }
+            rc.add(resourceScope);
+        }
+        return rc;
+    }
+
     public void process(Uberizer uberizer, File workDir, TreeMap<String, UberEntry> nodes) throws IOException {
 
-        final List<Relocator> relocators = getRelocators();
+        // Compiled once and shared by all the remap calls.
+        final RelocatorIndex relocators = new RelocatorIndex(getRelocators());
 
         // Perhaps there is no work for us to do.
         if( relocators.isEmpty() ) {
@@ -89,77 +143,100 @@ public class ClassShader implements Transformer {
 
 
         HashMap<String, String> relocatedClasses = uberizer.getClassRelocations();
-        RelocatorRemapper remapper = new RelocatorRemapper(relocators);
+        final RelocatorRemapper remapper = new RelocatorRemapper(relocators);
+        final RelocationCache cache = cacheDirectory==null ? null : new RelocationCache(cacheDirectory, cacheSize*1024*1024, relocations);
+
+        // The classes are remapped concurrently, but the results are applied
+        // to the tree in the tree order so that they don't depend on which
+        // class finished remapping first.  Only a window of classes gets
+        // remapped ahead of the one being written, so that the remapped
+        // classes don't all sit in memory.
+        int window = uberizer.getThreadCount() * 4;
+        LinkedList<RemappedClass> pending = new LinkedList<RemappedClass>();
         for (UberEntry node : new ArrayList<UberEntry>(nodes.values())) {
             if( node.getSources().isEmpty() ) {
                 continue;
             }
-            
+
             String path = node.getPath();
             if ( path.endsWith( ".class" ) )
             {
-
                 // Need to take the .class off for remapping evaluation
                 final String classPath = path.substring(0, path.indexOf('.'));
-                String remappedPath = remapper.map(classPath) + ".class";
-                byte[] modifiedClass;
-
-                File file = uberizer.pickOneSource(nodes, node);
-                InputStream is = new FileInputStream( file );
-                try {
-                    ClassReader cr = new ClassReader( is );
-                    ClassWriter cw = new ClassWriter( cr, 0 );
-                    ClassVisitor cv = new RemappingClassAdapter( cw, remapper );
-                    cr.accept( cv, ClassReader.EXPAND_FRAMES );
-                    modifiedClass = cw.toByteArray();
-                } finally {
-                    IOUtil.close( is );
+                RemappedClass remapped = new RemappedClass(node, classPath, remapper.map(classPath) + ".class");
+
+                final File file = uberizer.pickOneSource(nodes, node);
+                remapped.file = new File(workDir, remapped.remappedPath);
+                if( !uberizer.isUpToDate(remapped.file, Collections.singletonList(file)) ) {
+                    remapped.data = DefaultUberizer.submit(uberizer.getExecutor(), new Callable<byte[]>() {
+                        public byte[] call() throws Exception {
+                            return remap(file, remapper, cache);
+                        }
+                    });
                 }
-
-
-                String className = classPath.replace('/','.');
-                String mappedClassName = mapClassName(relocators, className);
-                if( mappedClassName != className ) {
-                    relocatedClasses.put(className, mappedClassName);
+                pending.add(remapped);
+                if( pending.size() > window ) {
+                    apply(pending.removeFirst(), relocators, relocatedClasses, workDir, nodes);
                 }
+            }
+        }
+        while( !pending.isEmpty() ) {
+            apply(pending.removeFirst(), relocators, relocatedClasses, workDir, nodes);
+        }
 
-                // Write the file out
-                is = new ByteArrayInputStream(modifiedClass);
-                File classFile = DefaultUberizer.writeFile(workDir, remappedPath, is);
-
-                // Modify the node tree.
-                nodes.remove(path);
-                UberEntry update = new UberEntry(remappedPath, node).addSource(classFile);
-                nodes.put(update.getPath(), update);
+        if( cache!=null ) {
+            cache.evict();
+        }
+        if( getLogger()!=null && getLogger().isDebugEnabled() ) {
+            StringBuilder sb = new StringBuilder("Remapped names cache:");
+            Memo[] memos = new Memo[] {remapper.names, remapper.values, remapper.descs, remapper.methodDescs};
+            for (int i = 0; i < memos.length; i++) {
+                long hits = memos[i].hits.get();
+                long total = hits + memos[i].misses.get();
+                sb.append(i == 0 ? " " : ", ").append(memos[i].name).append(' ').append(hits).append(" hits, ")
+                        .append(total - hits).append(" misses");
+                if( total != 0 ) {
+                    sb.append(" (").append(hits * 100 / total).append("% hit ratio)");
+                }
             }
+            getLogger().debug(sb.toString());
         }
 
         // Should we update resources with the class name changes?
         if( resources!=null && !relocatedClasses.isEmpty()) {
             
-            // regex for a non class name character
-            final String ncnc = "(\\A|\\z|[^\\p{L}\\p{Nd}\\.\\$\\_])";
+            // Finds all the relocated class names in a single pass over the resource.
+            ClassNameReplacer replacer = new ClassNameReplacer(relocatedClasses);
 
             for (UberEntry node : new ArrayList<UberEntry>(nodes.values())) {
                 String path = node.getPath();
                 if ( resources.matches(path) && !path.endsWith(".class")) {
 
                     File file = uberizer.pickOneSource(nodes, node);
-                    String content = FileUtils.fileRead(file);
 
-
-                    for (Entry<String, String> entry : relocatedClasses.entrySet()) {
-
-                        // This regex is little complicated cause we don't want to partially match a class.
-                        // For example, replacing the 'test.Foo' in the 'com.myco.test.Foo' would be
-                        // a bad thing.
-                        String regex = ncnc + Pattern.quote(entry.getKey()) + ncnc;
-                        // Need to escape the $ litterals in the value...
-                        String value = entry.getValue().replaceAll("\\$", "\\\\\\$");
-                        content = content.replaceAll(regex, "$1"+ value +"$2");
+                    // Most resources don't reference any of the relocated classes,
+                    // so check before rewriting them.
+                    Reader reader = openReader(file);
+                    try {
+                        if( !replacer.replace(reader, null) ) {
+                            continue;
+                        }
+                    } finally {
+                        IOUtil.close(reader);
                     }
+
                     File udpateFile = DefaultUberizer.prepareFile(workDir, node.getPath());
-                    FileUtils.fileWrite(udpateFile.getPath(), content);
+                    reader = openReader(file);
+                    try {
+                        Writer writer = openWriter(udpateFile);
+                        try {
+                            replacer.replace(reader, writer);
+                        } finally {
+                            IOUtil.close(writer);
+                        }
+                    } finally {
+                        IOUtil.close(reader);
+                    }
 
                     // Modify the node tree.
                     UberEntry update = new UberEntry(node).addSource(udpateFile);
@@ -170,26 +247,139 @@ public class ClassShader implements Transformer {
 
     }
 
+    private Reader openReader(File file) throws IOException {
+        InputStream is = DefaultUberizer.openInputStream(file);
+        try {
+            return encoding==null ? new InputStreamReader(is) : new InputStreamReader(is, encoding);
+        } catch (IOException e) {
+            IOUtil.close(is);
+            throw e;
+        }
+    }
+
+    private Writer openWriter(File file) throws IOException {
+        OutputStream os = new FileOutputStream(file);
+        try {
+            return encoding==null ? new OutputStreamWriter(os) : new OutputStreamWriter(os, encoding);
+        } catch (IOException e) {
+            IOUtil.close(os);
+            throw e;
+        }
+    }
+
+    static class RemappedClass {
+        final UberEntry node;
+        final String classPath;
+        final String remappedPath;
+        File file;
+        Future<byte[]> data;
+
+        RemappedClass(UberEntry node, String classPath, String remappedPath) {
+            this.node = node;
+            this.classPath = classPath;
+            this.remappedPath = remappedPath;
+        }
+    }
+
+    private static void apply(RemappedClass remapped, RelocatorIndex relocators, HashMap<String, String> relocatedClasses, File workDir, TreeMap<String, UberEntry> nodes) throws IOException {
+        String className = remapped.classPath.replace('/','.');
+        String mappedClassName = relocators.relocateClass(className);
+        if( mappedClassName != className ) {
+            relocatedClasses.put(className, mappedClassName);
+        }
+
+        // Write the file out, unless the previous run already did.
+        File classFile = remapped.file;
+        if( remapped.data != null ) {
+            InputStream is = new ByteArrayInputStream(DefaultUberizer.get(remapped.data));
+            classFile = DefaultUberizer.writeFile(workDir, remapped.remappedPath, is);
+        }
+
+        // Modify the node tree.
+        nodes.remove(remapped.node.getPath());
+        UberEntry update = new UberEntry(remapped.remappedPath, remapped.node).addSource(classFile);
+        nodes.put(update.getPath(), update);
+    }
+
+    private static byte[] remap(File file, Remapper remapper, RelocationCache cache) throws IOException {
+        // Read straight out of the memory mapped jar, if it has not been extracted.
+        byte[] original = DefaultUberizer.readBytes( file );
+
+        byte[] rc = cache==null ? null : cache.get( original );
+        if( rc == null ) {
+            ClassReader cr = new ClassReader( original );
+            ClassWriter cw = new ClassWriter( cr, 0 );
+            ClassVisitor cv = new RemappingClassAdapter( cw, remapper );
+            cr.accept( cv, ClassReader.EXPAND_FRAMES );
+            rc = cw.toByteArray();
+            if( cache!=null ) {
+                cache.put( original, rc );
+            }
+        }
+        return rc;
+    }
+
     public String mapClassName(List<Relocator> relocators, String name)
     {
-        String value = name;
-        for ( Iterator i = relocators.iterator(); i.hasNext(); )
+        return new RelocatorIndex(relocators).relocateClass(name);
+    }
+
+    /**
+     * A bounded concurrent memo of remapped names.  Once it's full, new names
+     * are remapped without being remembered, the names which are referenced
+     * the most are usually seen early on anyways.
+     */
+    static class Memo
+    {
+        final String name;
+        final int maxSize;
+        final ConcurrentHashMap<String, String> values = new ConcurrentHashMap<String, String>();
+        final AtomicInteger size = new AtomicInteger();
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+
+        Memo( String name, int maxSize )
         {
-            Relocator r = (Relocator) i.next();
-            if ( r.canRelocateClass( name ) )
+            this.name = name;
+            this.maxSize = maxSize;
+        }
+
+        String get( String key )
+        {
+            String rc = values.get( key );
+            if ( rc == null )
             {
-                value = r.relocateClass( name );
-                break;
+                misses.incrementAndGet();
+            }
+            else
+            {
+                hits.incrementAndGet();
+            }
+            return rc;
+        }
+
+        void put( String key, String value )
+        {
+            if ( size.get() < maxSize && values.putIfAbsent( key, value ) == null )
+            {
+                size.incrementAndGet();
             }
         }
-        return value;
     }
 
     class RelocatorRemapper extends Remapper
     {
-        List<Relocator> relocators;
+        RelocatorIndex relocators;
+
+        // The same names are remapped over and over again as the classes get remapped.
+        // The descriptors are remapped through map(), so each memo keeps it's own
+        // counts instead of one lookup getting counted several times.
+        final Memo names = new Memo( "names", MEMO_SIZE );
+        final Memo values = new Memo( "values", MEMO_SIZE );
+        final Memo descs = new Memo( "descs", MEMO_SIZE );
+        final Memo methodDescs = new Memo( "method descs", MEMO_SIZE );
 
-        public RelocatorRemapper( List<Relocator> relocators )
+        public RelocatorRemapper( RelocatorIndex relocators )
         {
             this.relocators = relocators;
         }
@@ -204,79 +394,46 @@ public class ClassShader implements Transformer {
             if ( object instanceof String )
             {
                 String name = (String) object;
-                String value = name;
-                for ( Iterator i = relocators.iterator(); i.hasNext(); )
+                String value = values.get( name );
+                if ( value == null )
                 {
-                    Relocator r = (Relocator) i.next();
-
-                    if ( r.canRelocateClass( name ) )
-                    {
-                        value = r.relocateClass( name );
-                        break;
-                    }
-                    else if ( r.canRelocatePath( name ) )
-                    {
-                        value = r.relocatePath( name );
-                        break;
-                    }
-
-                    if ( name.length() > 0 && name.charAt( 0 ) == '[' )
-                    {
-                        int count = 0;
-                        while ( name.length() > 0 && name.charAt(0) == '[' )
-                        {
-                            name = name.substring( 1 );
-                            ++count;
-                        }
-
-                        if ( name.length() > 0
-                             && name.charAt( 0 ) == 'L'
-                             && name.charAt( name.length() - 1 ) == ';' )
-                        {
-                            name = name.substring( 1, name.length() - 1 );
-
-                            if ( r.canRelocatePath( name ) )
-                            {
-                                value = 'L' + r.relocatePath( name ) + ';';
-                                while ( count > 0 )
-                                {
-                                    value = '[' + value;
-                                    --count;
-                                }
-                                break;
-                            }
-
-                            if ( r.canRelocateClass( name ) )
-                            {
-                                value = 'L' + r.relocateClass( name ) + ';';
-                                while (count > 0)
-                                {
-                                    value = '[' + value;
-                                    --count;
-                                }
-                                break;
-                            }
-
-                        }
-                    }
+                    value = relocators.relocateValue( name );
+                    values.put( name, value );
                 }
                 return value;
             }
             return super.mapValue( object );
         }
 
-        public String map( String name )
+        public String mapDesc( String desc )
         {
-            String value = name;
-            for ( Iterator i = relocators.iterator(); i.hasNext(); )
+            String value = descs.get( desc );
+            if ( value == null )
             {
-                Relocator r = (Relocator) i.next();
+                value = super.mapDesc( desc );
+                descs.put( desc, value );
+            }
+            return value;
+        }
 
-                if ( r.canRelocatePath( name ) )
-                {
-                    value = r.relocatePath( name );
-                    break;
-                }
+        public String mapMethodDesc( String desc )
+        {
+            String value = methodDescs.get( desc );
+            if ( value == null )
+            {
+                value = super.mapMethodDesc( desc );
+                methodDescs.put( desc, value );
+            }
+            return value;
+        }
+
+        public String map( String name )
+        {
+            String value = names.get( name );
+            if ( value == null )
+            {
+                value = relocators.relocatePath( name );
+                names.put( name, value );
             }
             return value;
         }
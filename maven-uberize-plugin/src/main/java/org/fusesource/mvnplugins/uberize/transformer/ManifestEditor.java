@@ -19,13 +19,14 @@
 package org.fusesource.mvnplugins.uberize.transformer;
 
 import org.fusesource.mvnplugins.uberize.DefaultUberizer;
-import org.fusesource.mvnplugins.uberize.Transformer;
+import org.fusesource.mvnplugins.uberize.PathScope;
+import org.fusesource.mvnplugins.uberize.ConcurrentTransformer;
 import org.fusesource.mvnplugins.uberize.UberEntry;
 import org.fusesource.mvnplugins.uberize.Uberizer;
 import org.codehaus.plexus.util.IOUtil;
 
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.InputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.Iterator;
@@ -42,20 +43,24 @@ import java.util.jar.Manifest;
  * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
  * @since 1.2
  */
-public class ManifestEditor implements Transformer {
+public class ManifestEditor implements ConcurrentTransformer {
     private static final String MANIFEST_PATH = "META-INF/MANIFEST.MF";
 
     // Configuration
     private String mainClass;
     private Map manifestEntries;
 
+    public PathScope getScope() {
+        return new PathScope().path(MANIFEST_PATH);
+    }
+
     public void process(Uberizer uberizer, File workDir, TreeMap<String, UberEntry> uberEntries) throws IOException {
 
         Manifest manifest;
         final UberEntry uberEntry = uberEntries.get(MANIFEST_PATH);
         if (uberEntry != null && uberEntry.getSources().size() > 0) {
             // We just want to take the first manifest we come across as that's our project's manifest.
-            FileInputStream is = new FileInputStream(uberEntry.getSources().get(0));
+            InputStream is = DefaultUberizer.openInputStream(uberEntry.getSources().get(0));
             try {
                 manifest = new Manifest(is);
             } finally {
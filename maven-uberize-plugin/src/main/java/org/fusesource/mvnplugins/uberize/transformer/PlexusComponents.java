@@ -20,7 +20,8 @@ package org.fusesource.mvnplugins.uberize.transformer;
  */
 
 import org.fusesource.mvnplugins.uberize.DefaultUberizer;
-import org.fusesource.mvnplugins.uberize.Transformer;
+import org.fusesource.mvnplugins.uberize.PathScope;
+import org.fusesource.mvnplugins.uberize.ConcurrentTransformer;
 import org.fusesource.mvnplugins.uberize.UberEntry;
 import org.fusesource.mvnplugins.uberize.Uberizer;
 import org.codehaus.plexus.util.IOUtil;
@@ -32,6 +33,7 @@ import org.codehaus.plexus.util.xml.Xpp3DomWriter;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
 import java.io.Writer;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -43,10 +45,14 @@ import java.util.TreeMap;
  * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
  */
 public class PlexusComponents
-        implements Transformer {
+        implements ConcurrentTransformer {
 
     public static final String COMPONENTS_XML_PATH = "META-INF/plexus/components.xml";
 
+    public PathScope getScope() {
+        return new PathScope().path(COMPONENTS_XML_PATH);
+    }
+
     public void process(Uberizer uberizer, File workDir, TreeMap<String, UberEntry> uberEntries) throws IOException {
         UberEntry uberEntry = uberEntries.get(COMPONENTS_XML_PATH);
 
@@ -88,10 +94,13 @@ public class PlexusComponents
         for (File file : files) {
 
             Xpp3Dom dom;
+            Reader reader = ReaderFactory.newXmlReader(DefaultUberizer.openInputStream(file));
             try {
-                dom = Xpp3DomBuilder.build(ReaderFactory.newXmlReader(file));
+                dom = Xpp3DomBuilder.build(reader);
             } catch (Exception e) {
                 throw new IOException("Error parsing components.xml in " + file);
+            } finally {
+                IOUtil.close(reader);
             }
 
             // Only try to merge in components if there are some elements in the component-set
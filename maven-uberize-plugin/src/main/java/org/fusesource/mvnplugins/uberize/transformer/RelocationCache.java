@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.fusesource.mvnplugins.uberize.transformer;
+
+import org.fusesource.mvnplugins.uberize.relocation.PackageRelocation;
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An on disk cache of relocated classes which can be shared by many builds.  The
+ * relocated class is stored under the hash of the original class bytes, in a
+ * directory named after the hash of the relocation rules which were applied.  The
+ * least recently used classes get evicted once the cache grows past it's maximum
+ * size.
+ * <p>
+ * The cache only keeps it's files in the <code>uberize-relocations</code> sub
+ * directory of the configured directory, and only those files are ever evicted,
+ * so it is safe to point it at a directory holding other files like
+ * <code>~/.m2</code>.
+ * </p>
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+class RelocationCache {
+
+    /**
+     * Needs to change whenever the way classes get relocated changes so that
+     * classes relocated by older versions of the plugin are not used.
+     */
+    private static final String VERSION = "2";
+
+    static final String DIRECTORY = "uberize-relocations";
+
+    /**
+     * How old a temp file has to be before it's considered left behind by
+     * a build which died while adding a class.
+     */
+    private static final long STALE_TEMP_AGE = 60 * 60 * 1000;
+
+    private final File root;
+    private final File directory;
+    private final long maxSize;
+    private final AtomicLong added = new AtomicLong();
+
+    /**
+     * @param directory the root directory of the cache
+     * @param maxSize the maximum size of the cache in bytes
+     * @param relocations the relocations the cached classes are relocated with
+     */
+    RelocationCache(File directory, long maxSize, PackageRelocation[] relocations) {
+        this.root = new File(directory, DIRECTORY);
+        this.directory = new File(root, sha1(fingerprint(relocations)));
+        this.maxSize = maxSize;
+    }
+
+    private static String fingerprint(PackageRelocation[] relocations) {
+        StringBuilder sb = new StringBuilder(VERSION);
+        for (PackageRelocation relocation : relocations) {
+            sb.append('\n').append(relocation.getPattern());
+            sb.append('\n').append(relocation.getShadedPattern());
+            sb.append('\n').append(relocation.getExcludes());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @param original the original class bytes
+     * @return the relocated class bytes or null if the class is not in the cache.
+     */
+    byte[] get(byte[] original) {
+        File file = getFile(original);
+        if( !file.isFile() ) {
+            return null;
+        }
+        try {
+            InputStream is = new FileInputStream(file);
+            try {
+                byte[] rc = IOUtil.toByteArray(is);
+                // Used to find the least recently used classes.
+                file.setLastModified(System.currentTimeMillis());
+                return rc;
+            } finally {
+                IOUtil.close(is);
+            }
+        } catch (IOException e) {
+            // It was probably evicted by some other build.
+            return null;
+        }
+    }
+
+    /**
+     * Stores the relocated class, failures are ignored since the
+     * class can always be relocated again.
+     *
+     * @param original the original class bytes
+     * @param relocated the relocated class bytes
+     */
+    void put(byte[] original, byte[] relocated) {
+        File file = getFile(original);
+        File dir = file.getParentFile();
+        try {
+            dir.mkdirs();
+            // Write to a temp file first so that concurrent builds never see a partial class.
+            File temp = File.createTempFile("relocated", ".tmp", dir);
+            OutputStream os = new FileOutputStream(temp);
+            try {
+                os.write(relocated);
+            } finally {
+                IOUtil.close(os);
+            }
+            if( temp.renameTo(file) ) {
+                added.addAndGet(relocated.length);
+            } else {
+                temp.delete();
+            }
+        } catch (IOException ignore) {
+        }
+    }
+
+    /**
+     * Deletes the least recently used classes if the cache grew past it's
+     * maximum size.
+     */
+    void evict() {
+        if( added.get() == 0 ) {
+            return;
+        }
+        ArrayList<File> files = new ArrayList<File>();
+        long size = list(root, files);
+        if( size <= maxSize ) {
+            return;
+        }
+        Collections.sort(files, new Comparator<File>() {
+            public int compare(File f1, File f2) {
+                long m1 = f1.lastModified();
+                long m2 = f2.lastModified();
+                return m1 < m2 ? -1 : (m1 == m2 ? 0 : 1);
+            }
+        });
+        for (File file : files) {
+            if( size <= maxSize ) {
+                break;
+            }
+            long length = file.length();
+            if( file.delete() ) {
+                size -= length;
+            }
+        }
+    }
+
+    /**
+     * Lists the relocated classes of all the relocation rules.  The stale temp
+     * files are deleted along the way.
+     */
+    private static long list(File root, ArrayList<File> files) {
+        long size = 0;
+        for (File rules : listFiles(root)) {
+            if( !rules.isDirectory() || !isHash(rules.getName(), 40) ) {
+                continue;
+            }
+            for (File bucket : listFiles(rules)) {
+                if( !bucket.isDirectory() || !isHash(bucket.getName(), 2) ) {
+                    continue;
+                }
+                for (File file : listFiles(bucket)) {
+                    String name = file.getName();
+                    if( !file.isFile() ) {
+                        continue;
+                    }
+                    if( name.endsWith(".class") && isHash(name.substring(0, name.length() - 6), 40) ) {
+                        files.add(file);
+                        size += file.length();
+                    } else if( name.startsWith("relocated") && name.endsWith(".tmp")
+                            && file.lastModified() < System.currentTimeMillis() - STALE_TEMP_AGE ) {
+                        file.delete();
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    private static File[] listFiles(File dir) {
+        File[] rc = dir.listFiles();
+        return rc == null ? new File[0] : rc;
+    }
+
+    private static boolean isHash(String name, int length) {
+        if( name.length() != length ) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if( Character.digit(name.charAt(i), 16) < 0 ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private File getFile(byte[] original) {
+        String hash = sha1(original);
+        return new File(directory, hash.substring(0, 2) + File.separator + hash + ".class");
+    }
+
+    private static String sha1(String value) {
+        try {
+            return sha1(value.getBytes("UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String sha1(byte[] data) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        StringBuilder sb = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+}
@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.TreeMap;
 
+import org.fusesource.mvnplugins.uberize.ConcurrentTransformer;
 import org.fusesource.mvnplugins.uberize.UberEntry;
 import org.fusesource.mvnplugins.uberize.Transformer;
 import org.fusesource.mvnplugins.uberize.Uberizer;
@@ -33,7 +34,11 @@ import org.fusesource.mvnplugins.uberize.Uberizer;
  *
  * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
  */
-public class RemoveResource extends AbstractPathTransformer {
+public class RemoveResource extends AbstractPathTransformer implements ConcurrentTransformer {
+
+    protected boolean isConcurrent() {
+        return true;
+    }
 
     protected UberEntry process(Uberizer uberizer, UberEntry entry, File target) throws IOException {
         // Returning null signals that we want the original entry removed.
@@ -19,12 +19,11 @@ package org.fusesource.mvnplugins.uberize.transformer;
  * under the License.
  */
 
-import org.codehaus.plexus.util.SelectorUtils;
+import org.fusesource.mvnplugins.uberize.PathScope;
+import org.fusesource.mvnplugins.uberize.filter.PathPatterns;
 
 import java.util.Iterator;
 import java.util.Set;
-import java.util.Collection;
-import java.util.ArrayList;
 
 /**
  * @author David Blevins
@@ -36,6 +35,8 @@ public class Resources {
     public Set includes;
     public Set excludes;
 
+    private transient volatile Matcher matcher;
+
     public Resources() {
     }
 
@@ -52,35 +53,89 @@ public class Resources {
         return excludes;
     }
 
-    public boolean matches(String value) {
-
-        return isIncluded(value) && !isExcluded(value);
+    /**
+     * The scope is made up of the literal parts of the include patterns which come
+     * before the first wildcard.
+     *
+     * @return the scope of the paths which can match or null if any path could match.
+     */
+    public PathScope getScope() {
+        if (ignoreCase || includes == null || includes.size() == 0) {
+            return null;
+        }
+        PathScope rc = new PathScope();
+        for (Iterator iterator = includes.iterator(); iterator.hasNext();) {
+            String pattern = (String) iterator.next();
+            int wildcard = indexOfWildcard(pattern);
+            if (wildcard < 0) {
+                rc.path(pattern);
+            } else {
+                int slash = pattern.lastIndexOf('/', wildcard);
+                if (slash < 0) {
+                    return null;
+                }
+                rc.prefix(pattern.substring(0, slash + 1));
+            }
+        }
+        return rc;
     }
 
-    private boolean isIncluded(String value) {
-        if (includes == null || includes.size() == 0) {
-            return true;
+    private static int indexOfWildcard(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?') {
+                return i;
+            }
         }
-
-        return matchPaths(includes, value);
+        return -1;
     }
 
-    private boolean isExcluded(String value) {
-        if (excludes == null || excludes.size() == 0) {
+    public boolean matches(String value) {
+        Matcher matcher = getMatcher();
+        if (!matcher.includes.isEmpty() && !matcher.includes.matches(value)) {
             return false;
         }
+        return !matcher.excludes.matches(value);
+    }
 
-        return matchPaths(excludes, value);
+    /**
+     * The patterns get compiled the first time they are needed, and again
+     * if the configuration changed since.
+     */
+    private Matcher getMatcher() {
+        Matcher rc = matcher;
+        if (rc == null || !rc.isFor(this)) {
+            rc = new Matcher(this);
+            matcher = rc;
+        }
+        return rc;
     }
 
-    private boolean matchPaths(Collection p, String value) {
-        for (Iterator iterator = p.iterator(); iterator.hasNext();) {
-            String pattern = (String) iterator.next();
-            if (SelectorUtils.matchPath(pattern, value, !ignoreCase)) {
-                return true;
-            }
+    static class Matcher {
+        final Set includeSet;
+        final Set excludeSet;
+        final int includeSize;
+        final int excludeSize;
+        final boolean ignoreCase;
+        final PathPatterns includes;
+        final PathPatterns excludes;
+
+        Matcher(Resources resources) {
+            includeSet = resources.includes;
+            excludeSet = resources.excludes;
+            includeSize = includeSet == null ? 0 : includeSet.size();
+            excludeSize = excludeSet == null ? 0 : excludeSet.size();
+            ignoreCase = resources.ignoreCase;
+            includes = new PathPatterns(includeSet, !ignoreCase);
+            excludes = new PathPatterns(excludeSet, !ignoreCase);
+        }
+
+        boolean isFor(Resources resources) {
+            return includeSet == resources.includes && excludeSet == resources.excludes
+                && includeSize == (includeSet == null ? 0 : includeSet.size())
+                && excludeSize == (excludeSet == null ? 0 : excludeSet.size())
+                && ignoreCase == resources.ignoreCase;
         }
-        return false;
     }
 
 }
\ No newline at end of file
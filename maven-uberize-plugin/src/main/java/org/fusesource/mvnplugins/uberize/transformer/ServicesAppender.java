@@ -19,15 +19,29 @@ package org.fusesource.mvnplugins.uberize.transformer;
  * under the License.
  */
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.OutputStream;
 import java.io.FileOutputStream;
-import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.codehaus.plexus.util.IOUtil;
+import org.fusesource.mvnplugins.uberize.ClassRelocationsTransformer;
+import org.fusesource.mvnplugins.uberize.DefaultUberizer;
+import org.fusesource.mvnplugins.uberize.PathScope;
 import org.fusesource.mvnplugins.uberize.UberEntry;
 import org.fusesource.mvnplugins.uberize.Uberizer;
 
@@ -37,33 +51,135 @@ import org.fusesource.mvnplugins.uberize.Uberizer;
  * resources spread across many JARs the individual entries will all be concatenated into a single
  * META-INF/services/org.apache.maven.project.ProjectBuilder resource packaged into the resultant JAR produced
  * by the shading process.
+ * <p>
+ * The provider class names are merged line by line: comments and blank lines are
+ * dropped and each provider is only listed once.  The classes relocated by the
+ * transformers which ran before this one are relocated in the provider names and
+ * in the service file names as they get merged.
+ * </p>
  *
  * @author jvanzyl
  */
-public class ServicesAppender extends AbstractTransformer {
-    private static final String SERVICES_PATH = "META-INF/services";
+public class ServicesAppender implements ClassRelocationsTransformer {
+    private static final String SERVICES_PATH = "META-INF/services/";
 
-    private ByteArrayOutputStream data;
+    public PathScope getScope() {
+        return new PathScope().prefix(SERVICES_PATH);
+    }
+
+    public boolean updatesClassRelocations() {
+        return false;
+    }
 
     protected boolean matches(String resource) {
         return resource.startsWith(SERVICES_PATH);
     }
 
-    protected UberEntry process(Uberizer uberizer, UberEntry entry, File target) throws IOException {
-        OutputStream out = new FileOutputStream(target);
-        try {
+    public void process(final Uberizer uberizer, final File workDir, TreeMap<String, UberEntry> uberEntries) throws IOException {
+        final Map<String, String> relocations = uberizer != null ? uberizer.getClassRelocations() : Collections.<String, String>emptyMap();
+
+        // Services which got relocated get merged with the ones which
+        // already had the relocated name.
+        LinkedHashMap<String, List<UberEntry>> services = new LinkedHashMap<String, List<UberEntry>>();
+        for (UberEntry entry : uberEntries.values()) {
+            if( entry.getSources().isEmpty() || !matches(entry.getPath()) ) {
+                continue;
+            }
+            String path = relocate(entry.getPath(), relocations);
+            List<UberEntry> entries = services.get(path);
+            if( entries == null ) {
+                entries = new ArrayList<UberEntry>(1);
+                services.put(path, entries);
+            }
+            entries.add(entry);
+        }
+
+        // The services are merged concurrently, but the tree is only
+        // updated from this thread.
+        ExecutorService executor = uberizer != null ? uberizer.getExecutor() : null;
+        ArrayList<Future<UberEntry>> futures = new ArrayList<Future<UberEntry>>();
+        for (Map.Entry<String, List<UberEntry>> service : services.entrySet()) {
+            final String path = service.getKey();
+            final List<UberEntry> entries = service.getValue();
+            if( relocations.isEmpty() && entries.size() == 1 && entries.get(0).getSources().size() == 1 ) {
+                // Nothing to merge or relocate.
+                futures.add(null);
+                continue;
+            }
+            futures.add(DefaultUberizer.submit(executor, new Callable<UberEntry>() {
+                public UberEntry call() throws Exception {
+                    return merge(workDir, path, entries, relocations);
+                }
+            }));
+        }
+
+        int i = 0;
+        for (Map.Entry<String, List<UberEntry>> service : services.entrySet()) {
+            Future<UberEntry> future = futures.get(i++);
+            UberEntry modEntry = future == null ? null : DefaultUberizer.get(future);
+            if( modEntry != null ) {
+                for (UberEntry entry : service.getValue()) {
+                    uberEntries.remove(entry.getPath());
+                }
+                uberEntries.put(modEntry.getPath(), modEntry);
+            }
+        }
+    }
+
+    /**
+     * @return the merged entry or null if the service did not need to change.
+     */
+    private UberEntry merge(File workDir, String path, List<UberEntry> entries, Map<String, String> relocations) throws IOException {
+        boolean changed = entries.size() > 1 || !entries.get(0).getPath().equals(path);
+        LinkedHashSet<String> providers = new LinkedHashSet<String>();
+        for (UberEntry entry : entries) {
+            changed |= entry.getSources().size() > 1;
             for (File source : entry.getSources()) {
-                InputStream in = new FileInputStream(source);
+                BufferedReader reader = new BufferedReader(new InputStreamReader(DefaultUberizer.openInputStream(source), "UTF-8"));
                 try {
-                    IOUtil.copy( in, out );
+                    String line;
+                    while( (line = reader.readLine()) != null ) {
+                        int comment = line.indexOf('#');
+                        if( comment >= 0 ) {
+                            line = line.substring(0, comment);
+                        }
+                        line = line.trim();
+                        if( line.length() == 0 ) {
+                            continue;
+                        }
+                        String relocated = relocations.get(line);
+                        if( relocated != null ) {
+                            line = relocated;
+                            changed = true;
+                        }
+                        providers.add(line);
+                    }
                 } finally {
-                    IOUtil.close(in);
+                    IOUtil.close(reader);
                 }
             }
+        }
+        if( !changed ) {
+            return null;
+        }
+
+        File target = DefaultUberizer.prepareFile(workDir, path);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(target), "UTF-8"));
+        try {
+            for (String provider : providers) {
+                writer.write(provider);
+                writer.write('\n');
+            }
         } finally {
-            IOUtil.close(out);
+            IOUtil.close(writer);
         }
-        return new UberEntry(entry).addSource(target);
+        UberEntry rc = entries.size() == 1 ? new UberEntry(path, entries.get(0)) : new UberEntry(path, entries);
+        return rc.addSource(target);
+    }
+
+    private static String relocate(String path, Map<String, String> relocations) {
+        String relocated = relocations.get(path.substring(SERVICES_PATH.length()));
+        return relocated == null ? path : SERVICES_PATH + relocated;
     }
 
 }
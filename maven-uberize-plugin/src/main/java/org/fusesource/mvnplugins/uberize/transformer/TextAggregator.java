@@ -24,47 +24,50 @@ import java.io.InputStream;
 import java.io.File;
 import java.io.OutputStream;
 import java.io.FileOutputStream;
-import java.io.FileInputStream;
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 
 import org.codehaus.plexus.util.IOUtil;
+import org.fusesource.mvnplugins.uberize.ConcurrentTransformer;
+import org.fusesource.mvnplugins.uberize.DefaultUberizer;
 import org.fusesource.mvnplugins.uberize.UberEntry;
 import org.fusesource.mvnplugins.uberize.Uberizer;
 
 /**
  * A resource processor that appends content for a resource, separated by
  * an end of line sequence.
+ * <p>
+ * The content is copied a block at a time.  Carriage returns are dropped,
+ * line feeds are replaced by the configured end of line sequence and the
+ * UTF-8 byte order mark at the start of each resource is removed.
+ * </p>
  * 
  * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
  */
-public class TextAggregator extends AbstractPathTransformer
+public class TextAggregator extends AbstractPathTransformer implements ConcurrentTransformer
 {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] BOM = new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
     public String eol = "\n";
 
+    /**
+     * Should the UTF-8 byte order marks be removed from the aggregated resources?
+     */
+    public boolean stripBom = true;
+
+    protected boolean isConcurrent() {
+        return true;
+    }
+
     protected UberEntry process(Uberizer uberizer, UberEntry entry, File target) throws IOException {
         byte eolBytes[] = eol.getBytes("UTF-8");
-        OutputStream out = new BufferedOutputStream(new FileOutputStream(target));
-        int counter=0;
+        byte buffer[] = new byte[BUFFER_SIZE];
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(target), BUFFER_SIZE);
         try {
             for (File source : entry.getSources()) {
-                InputStream in = new BufferedInputStream(new FileInputStream(source));
+                InputStream in = DefaultUberizer.openInputStream(source);
                 try {
-                    boolean endsWithNewline=true;
-                    int c;
-                    while( (c=in.read())>=0 ) {
-                        if( c=='\r' ) {
-                            continue;
-                        }
-                        if( c=='\n' ) {
-                            endsWithNewline = true;
-                            out.write(eolBytes);
-                        } else {
-                            endsWithNewline = false;
-                            out.write(c);
-                        }
-                    }
-                    if( !endsWithNewline ) {
+                    if( !copy(in, out, buffer, eolBytes) ) {
                         out.write(eolBytes);
                     }
                 } finally {
@@ -77,4 +80,59 @@ public class TextAggregator extends AbstractPathTransformer
         return new UberEntry(entry).addSource(target);        
     }
 
+    /**
+     * Copies the stream, writing the runs of bytes between the end of lines
+     * with a single call.
+     *
+     * @return true if the stream was empty or ended with a new line.
+     */
+    private boolean copy(InputStream in, OutputStream out, byte[] buffer, byte[] eolBytes) throws IOException {
+        boolean endsWithNewline = true;
+        // Read enough to see the whole byte order mark.
+        int count = 0;
+        while( count < BOM.length ) {
+            int rc = in.read(buffer, count, buffer.length - count);
+            if( rc < 0 ) {
+                break;
+            }
+            count += rc;
+        }
+        int pos = stripBom && startsWithBom(buffer, count) ? BOM.length : 0;
+        while( count >= 0 ) {
+            int run = pos;
+            for (int i = pos; i < count; i++) {
+                byte c = buffer[i];
+                if( c=='\r' || c=='\n' ) {
+                    out.write(buffer, run, i - run);
+                    if( c=='\n' ) {
+                        out.write(eolBytes);
+                    }
+                    run = i + 1;
+                }
+            }
+            out.write(buffer, run, count - run);
+            for (int i = count - 1; i >= pos; i--) {
+                if( buffer[i]!='\r' ) {
+                    endsWithNewline = buffer[i]=='\n';
+                    break;
+                }
+            }
+            count = in.read(buffer);
+            pos = 0;
+        }
+        return endsWithNewline;
+    }
+
+    private static boolean startsWithBom(byte[] buffer, int count) {
+        if( count < BOM.length ) {
+            return false;
+        }
+        for (int i = 0; i < BOM.length; i++) {
+            if( buffer[i]!=BOM[i] ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
 }
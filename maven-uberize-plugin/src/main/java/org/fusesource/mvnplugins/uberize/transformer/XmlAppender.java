@@ -19,6 +19,8 @@ package org.fusesource.mvnplugins.uberize.transformer;
  * under the License.
  */
 
+import org.fusesource.mvnplugins.uberize.ConcurrentTransformer;
+import org.fusesource.mvnplugins.uberize.DefaultUberizer;
 import org.fusesource.mvnplugins.uberize.UberEntry;
 import org.fusesource.mvnplugins.uberize.Uberizer;
 import org.codehaus.plexus.util.IOUtil;
@@ -31,8 +33,8 @@ import org.jdom.input.SAXBuilder;
 import org.jdom.output.Format;
 import org.jdom.output.XMLOutputter;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -42,29 +44,45 @@ import java.util.Iterator;
 /**
  * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
  */
-public class XmlAppender extends AbstractPathTransformer {
+public class XmlAppender extends AbstractPathTransformer implements ConcurrentTransformer {
     public static final String XSI_NS = "http://www.w3.org/2001/XMLSchema-instance";
 
+    /**
+     * Should the documents be merged with StAX?  The children of the root
+     * elements are then streamed to the merged document instead of being
+     * loaded in memory, but they are not pretty printed.
+     */
+    public boolean streaming;
+
+    protected boolean isConcurrent() {
+        return true;
+    }
+
     protected UberEntry process(Uberizer uberizer, UberEntry entry, File target) throws IOException {
-        Document doc=null;
-        OutputStream out = new FileOutputStream(target);
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(target));
         try {
-            for (File source : entry.getSources()) {
-                doc = merge(doc, source);
+            if( streaming ) {
+                XmlStreamMerger.merge(entry.getSources(), out);
+            } else {
+                Document doc=null;
+                SAXBuilder builder = new SAXBuilder();
+                for (File source : entry.getSources()) {
+                    doc = merge(builder, doc, source);
+                }
+                new XMLOutputter(Format.getPrettyFormat()).output(doc, out);
             }
-            new XMLOutputter(Format.getPrettyFormat()).output(doc, out);
         } finally {
             IOUtil.close(out);
         }
         return new UberEntry(entry).addSource(target);
     }
 
-    private Document merge(Document doc, File source) throws IOException {
-        InputStream in = new FileInputStream(source);
+    private Document merge(SAXBuilder builder, Document doc, File source) throws IOException {
+        InputStream in = DefaultUberizer.openInputStream(source);
         try {
             Document sourceDoc;
             try {
-                sourceDoc = new SAXBuilder().build(in);
+                sourceDoc = builder.build(in);
             }
             catch (JDOMException e) {
                 throw new RuntimeException(e);
@@ -0,0 +1,233 @@
+package org.fusesource.mvnplugins.uberize.transformer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Namespace;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import org.codehaus.plexus.util.IOUtil;
+import org.fusesource.mvnplugins.uberize.DefaultUberizer;
+
+/**
+ * Merges XML documents like the {@link XmlAppender} does, but streams the
+ * children of the root elements straight to the output with StAX instead of
+ * loading the documents into memory.
+ * <p>
+ * Each source is read twice.  The first pass only reads the root elements,
+ * so that the merged root element can be written with the attributes and
+ * namespaces of all of them.  The second pass copies their children.  The
+ * prolog of the first document is kept and the whitespace is copied as is.
+ * The namespaces a later document binds differently than the merged root
+ * are declared again on the children of its root.
+ * </p>
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+class XmlStreamMerger {
+
+    // The factories are thread safe once configured.
+    private static final XMLInputFactory INPUT_FACTORY = XMLInputFactory.newInstance();
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+    private static final XMLEventFactory EVENT_FACTORY = XMLEventFactory.newInstance();
+
+    static {
+        INPUT_FACTORY.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+    }
+
+    static void merge(List<File> sources, OutputStream out) throws IOException {
+        ArrayList<StartElement> roots = new ArrayList<StartElement>();
+        for (File source : sources) {
+            roots.add(readRoot(source));
+        }
+        if( roots.isEmpty() ) {
+            return;
+        }
+
+        // The merged root declares the namespaces of all the roots, the first
+        // declaration of a prefix wins like the first value of an attribute does.
+        LinkedHashMap<String, Namespace> namespaces = new LinkedHashMap<String, Namespace>();
+        for (StartElement root : roots) {
+            for (Iterator i = root.getNamespaces(); i.hasNext();) {
+                Namespace namespace = (Namespace) i.next();
+                if( !namespaces.containsKey(namespace.getPrefix()) ) {
+                    namespaces.put(namespace.getPrefix(), namespace);
+                }
+            }
+        }
+        LinkedHashMap<QName, Attribute> attributes = new LinkedHashMap<QName, Attribute>();
+        for (StartElement root : roots) {
+            for (Iterator i = root.getAttributes(); i.hasNext();) {
+                Attribute attribute = (Attribute) i.next();
+                QName name = attribute.getName();
+                Namespace namespace = namespaces.get(name.getPrefix());
+                if( namespace != null && name.getPrefix().length() > 0
+                        && !namespace.getNamespaceURI().equals(name.getNamespaceURI()) ) {
+                    continue;
+                }
+                if( !attributes.containsKey(name) ) {
+                    attributes.put(name, attribute);
+                }
+            }
+        }
+
+        try {
+            XMLEventWriter writer = OUTPUT_FACTORY.createXMLEventWriter(out, "UTF-8");
+            writer.add(EVENT_FACTORY.createStartDocument("UTF-8", "1.0"));
+            writer.add(EVENT_FACTORY.createCharacters("\n"));
+            StartElement root = roots.get(0);
+            for (int s = 0; s < sources.size(); s++) {
+                File source = sources.get(s);
+                List<Namespace> rebound = rebound(roots.get(s), namespaces);
+                InputStream in = DefaultUberizer.openInputStream(source);
+                try {
+                    XMLEventReader reader = INPUT_FACTORY.createXMLEventReader(in);
+                    try {
+                        // The prolog.
+                        while( !reader.peek().isStartElement() ) {
+                            XMLEvent event = reader.nextEvent();
+                            if( s == 0 && (event.getEventType() == XMLEvent.COMMENT
+                                    || event.getEventType() == XMLEvent.PROCESSING_INSTRUCTION
+                                    || event.getEventType() == XMLEvent.DTD) ) {
+                                writer.add(event);
+                                writer.add(EVENT_FACTORY.createCharacters("\n"));
+                            }
+                        }
+                        reader.nextEvent();
+                        if( s == 0 ) {
+                            QName name = root.getName();
+                            writer.add(EVENT_FACTORY.createStartElement(name.getPrefix(), name.getNamespaceURI(),
+                                    name.getLocalPart(), attributes.values().iterator(), namespaces.values().iterator()));
+                        }
+
+                        // The children of the root element.
+                        int depth = 0;
+                        while( true ) {
+                            XMLEvent event = reader.nextEvent();
+                            if( event.isStartElement() ) {
+                                if( depth == 0 && !rebound.isEmpty() ) {
+                                    event = redeclare(event.asStartElement(), rebound);
+                                }
+                                depth++;
+                            } else if( event.isEndElement() ) {
+                                if( depth == 0 ) {
+                                    break;
+                                }
+                                depth--;
+                            }
+                            writer.add(event);
+                        }
+                    } finally {
+                        reader.close();
+                    }
+                } finally {
+                    IOUtil.close(in);
+                }
+            }
+            writer.add(EVENT_FACTORY.createEndElement(root.getName(), null));
+            writer.add(EVENT_FACTORY.createCharacters("\n"));
+            writer.add(EVENT_FACTORY.createEndDocument());
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return the namespaces the root of a source binds differently than the
+     *         merged root does, they have to be declared again on the children
+     *         of the source's root.
+     */
+    private static List<Namespace> rebound(StartElement root, Map<String, Namespace> namespaces) {
+        ArrayList<Namespace> rc = new ArrayList<Namespace>();
+        NamespaceContext context = root.getNamespaceContext();
+        for (Namespace namespace : namespaces.values()) {
+            String uri = context.getNamespaceURI(namespace.getPrefix());
+            if( uri == null ) {
+                uri = "";
+            }
+            if( uri.equals(namespace.getNamespaceURI()) ) {
+                continue;
+            }
+            if( namespace.isDefaultNamespaceDeclaration() ) {
+                rc.add(EVENT_FACTORY.createNamespace(uri));
+            } else if( uri.length() > 0 ) {
+                rc.add(EVENT_FACTORY.createNamespace(namespace.getPrefix(), uri));
+            }
+        }
+        return rc;
+    }
+
+    private static StartElement redeclare(StartElement element, List<Namespace> rebound) {
+        LinkedHashMap<String, Namespace> namespaces = new LinkedHashMap<String, Namespace>();
+        for (Namespace namespace : rebound) {
+            namespaces.put(namespace.getPrefix(), namespace);
+        }
+        for (Iterator i = element.getNamespaces(); i.hasNext();) {
+            Namespace namespace = (Namespace) i.next();
+            namespaces.put(namespace.getPrefix(), namespace);
+        }
+        QName name = element.getName();
+        return EVENT_FACTORY.createStartElement(name.getPrefix(), name.getNamespaceURI(), name.getLocalPart(),
+                element.getAttributes(), namespaces.values().iterator());
+    }
+
+    private static StartElement readRoot(File source) throws IOException {
+        InputStream in = DefaultUberizer.openInputStream(source);
+        try {
+            XMLEventReader reader = INPUT_FACTORY.createXMLEventReader(in);
+            try {
+                while( reader.hasNext() ) {
+                    XMLEvent event = reader.nextEvent();
+                    if( event.isStartElement() ) {
+                        return event.asStartElement();
+                    }
+                }
+                throw new IOException("No root element in: "+source);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new RuntimeException(e);
+        } finally {
+            IOUtil.close(in);
+        }
+    }
+
+}
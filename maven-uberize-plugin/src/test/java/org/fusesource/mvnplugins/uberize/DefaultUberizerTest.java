@@ -20,23 +20,40 @@ package org.fusesource.mvnplugins.uberize;
  */
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
 import java.net.URLClassLoader;
 import java.net.URL;
 
 import junit.framework.TestCase;
 
 import org.fusesource.mvnplugins.uberize.relocation.PackageRelocation;
+import org.fusesource.mvnplugins.uberize.transformer.AbstractPathTransformer;
 import org.fusesource.mvnplugins.uberize.transformer.PlexusComponents;
 import org.fusesource.mvnplugins.uberize.transformer.ClassShader;
 import org.fusesource.mvnplugins.uberize.transformer.Resources;
+import org.fusesource.mvnplugins.uberize.transformer.ServicesAppender;
 import org.codehaus.plexus.util.*;
 import org.codehaus.plexus.logging.console.ConsoleLogger;
 import org.codehaus.plexus.logging.Logger;
@@ -154,6 +171,513 @@ public class DefaultUberizerTest extends TestCase {
         assertTrue( contnent.contains("<implementation>org.uber.component.DefaultPizzaComponent</implementation>") );
     }
 
+    public void testStreamingDoesNotExtractJars() throws Exception {
+        DefaultUberizer uberizer = createUberizer();
+        uberizer.setStreaming(true);
+
+        Set sources = new LinkedHashSet();
+        sources.add(new File("src/test/jars/test-project-1.0-SNAPSHOT.jar"));
+        sources.add(new File("src/test/jars/plexus-utils-1.4.1.jar"));
+
+        List transformers = new ArrayList();
+        transformers.add(new PlexusComponents());
+
+        List filters = new ArrayList();
+        File uberJar = new File(base, "testStreamingDoesNotExtractJars.jar");
+        uberizer.uberize(workDir, sources, uberJar, filters, transformers);
+
+        assertFalse(new File(workDir, "plexus-utils-1.4.1.jar").exists());
+        assertFalse(new File(workDir, "test-project-1.0-SNAPSHOT.jar").exists());
+
+        JarFile jar = new JarFile(uberJar);
+        try {
+            assertNotNull(jar.getEntry("org/codehaus/plexus/util/FileUtils.class"));
+            assertNotNull(jar.getEntry("META-INF/plexus/components.xml"));
+        } finally {
+            jar.close();
+        }
+    }
+
+    public void testUnmodifiedEntriesAreNotRecompressed() throws Exception {
+        Uberizer uberizer = createUberizer();
+
+        File source = new File("src/test/jars/plexus-utils-1.4.1.jar");
+        Set sources = new LinkedHashSet();
+        sources.add(source);
+
+        File uberJar = new File(base, "testUnmodifiedEntriesAreNotRecompressed.jar");
+        uberizer.uberize(workDir, sources, uberJar, new ArrayList(), new ArrayList());
+
+        JarFile original = new JarFile(source);
+        JarFile jar = new JarFile(uberJar);
+        try {
+            String path = "org/codehaus/plexus/util/FileUtils.class";
+            ZipEntry expected = original.getEntry(path);
+            ZipEntry actual = jar.getEntry(path);
+            assertEquals(expected.getCrc(), actual.getCrc());
+            assertEquals(expected.getSize(), actual.getSize());
+            assertEquals(expected.getCompressedSize(), actual.getCompressedSize());
+            assertTrue(IOUtil.contentEquals(original.getInputStream(expected), jar.getInputStream(actual)));
+        } finally {
+            original.close();
+            jar.close();
+        }
+    }
+
+    public void testDeflatingInParallelKeepsTheEntryOrder() throws Exception {
+        File single = relocateWithThreads(1, new File(base, "testDeflatingInParallel-1.jar"));
+        File parallel = relocateWithThreads(4, new File(base, "testDeflatingInParallel-4.jar"));
+        assertSameEntries(single, parallel);
+    }
+
+    public void testFirstJarWinsWhenReadConcurrently() throws Exception {
+        // The first jar is the biggest so that it's the last one read.
+        Set sources = new LinkedHashSet();
+        for (int i = 0; i < 4; i++) {
+            sources.add(createJar(new File(base, "first-wins-" + i + ".jar"), "jar-" + i, i == 0 ? 2000 : 1));
+        }
+        for (int i = 0; i < 2; i++) {
+            DefaultUberizer uberizer = createUberizer();
+            uberizer.setThreads(4);
+            uberizer.setStreaming(i == 1);
+            File uberJar = new File(base, "testFirstJarWinsWhenReadConcurrently-" + i + ".jar");
+            uberizer.uberize(workDir, sources, uberJar, new ArrayList(), new ArrayList());
+
+            JarFile jar = new JarFile(uberJar);
+            try {
+                assertEquals("jar-0", IOUtil.toString(jar.getInputStream(jar.getEntry("data/shared.txt"))));
+            } finally {
+                jar.close();
+            }
+        }
+    }
+
+    private static File createJar(File file, String content, int fillers) throws IOException {
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(file));
+        try {
+            for (int i = 0; i < fillers; i++) {
+                out.putNextEntry(new ZipEntry("data/" + content + "/filler-" + i + ".txt"));
+                out.write((content + " " + i).getBytes("UTF-8"));
+                out.closeEntry();
+            }
+            out.putNextEntry(new ZipEntry("data/shared.txt"));
+            out.write(content.getBytes("UTF-8"));
+            out.closeEntry();
+        } finally {
+            IOUtil.close(out);
+        }
+        return file;
+    }
+
+    private void assertSameEntries(File single, File parallel) throws IOException {
+        JarFile expected = new JarFile(single);
+        JarFile actual = new JarFile(parallel);
+        try {
+            Enumeration<JarEntry> expectedEntries = expected.entries();
+            Enumeration<JarEntry> actualEntries = actual.entries();
+            while (expectedEntries.hasMoreElements()) {
+                assertTrue(actualEntries.hasMoreElements());
+                JarEntry e = expectedEntries.nextElement();
+                JarEntry a = actualEntries.nextElement();
+                assertEquals(e.getName(), a.getName());
+                assertEquals(e.getCrc(), a.getCrc());
+                assertTrue(IOUtil.contentEquals(expected.getInputStream(e), actual.getInputStream(a)));
+            }
+            assertFalse(actualEntries.hasMoreElements());
+        } finally {
+            expected.close();
+            actual.close();
+        }
+    }
+
+    public void testRunsOnTheExecutorItIsGiven() throws Exception {
+        final AtomicInteger threads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(2, new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                threads.incrementAndGet();
+                Thread thread = new Thread(runnable);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            DefaultUberizer uberizer = createUberizer();
+            uberizer.setExecutor(executor);
+            uberizer.setVirtualThreads(true);
+            File uberJar = relocate(uberizer, new File(base, "testRunsOnTheExecutorItIsGiven.jar"));
+
+            assertTrue(threads.get() > 0);
+            assertFalse(executor.isShutdown());
+            // It stays available to the transformers run outside of uberize.
+            assertSame(executor, uberizer.getExecutor());
+            assertSameEntries(relocateWithThreads(1, new File(base, "testRunsOnTheExecutorItIsGiven-1.jar")), uberJar);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public void testFallsBackToAThreadPoolWithoutVirtualThreads() throws Exception {
+        DefaultUberizer uberizer = createUberizer();
+        uberizer.setVirtualThreads(true);
+        File uberJar = relocate(uberizer, new File(base, "testVirtualThreads.jar"));
+        assertNull(uberizer.getExecutor());
+        assertSameEntries(relocateWithThreads(1, new File(base, "testVirtualThreads-1.jar")), uberJar);
+    }
+
+    public void testPathTransformersOnlyUseTheExecutorWhenConcurrent() throws Exception {
+        final Thread[] shared = new Thread[1];
+        ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                shared[0] = new Thread(runnable);
+                shared[0].setDaemon(true);
+                return shared[0];
+            }
+        });
+        try {
+            Set sources = new LinkedHashSet();
+            sources.add(new File("src/test/jars/plexus-utils-1.4.1.jar"));
+            ThreadRecordingTransformer serial = new ThreadRecordingTransformer(false, "org/codehaus/plexus/util/xml/**");
+            ThreadRecordingTransformer concurrent = new ThreadRecordingTransformer(true, "org/codehaus/plexus/util/cli/**");
+            List transformers = new ArrayList();
+            transformers.add(serial);
+            transformers.add(concurrent);
+
+            DefaultUberizer uberizer = createUberizer();
+            uberizer.setExecutor(executor);
+            File uberJar = new File(base, "testPathTransformersOnlyUseTheExecutorWhenConcurrent.jar");
+            uberizer.uberize(workDir, sources, uberJar, new ArrayList(), transformers);
+
+            assertEquals(1, serial.threads.size());
+            assertFalse(serial.threads.contains(shared[0]));
+            assertEquals(Collections.singleton(shared[0]), concurrent.threads);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    static class ThreadRecordingTransformer extends AbstractPathTransformer {
+        final boolean concurrent;
+        final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+
+        ThreadRecordingTransformer(boolean concurrent, String include) {
+            this.concurrent = concurrent;
+            includes = new HashSet();
+            includes.add(include);
+        }
+
+        protected boolean isConcurrent() {
+            return concurrent;
+        }
+
+        protected UberEntry process(Uberizer uberizer, UberEntry entry, File target) throws IOException {
+            threads.add(Thread.currentThread());
+            return entry;
+        }
+    }
+
+    public void testTransformersWithDisjointScopesRunConcurrently() throws Exception {
+        // The first two only finish once they both are running.
+        CountDownLatch started = new CountDownLatch(2);
+        List<String> finished = Collections.synchronizedList(new ArrayList<String>());
+        List transformers = new ArrayList();
+        transformers.add(new LatchedTransformer("manifest", new PathScope().path("META-INF/MANIFEST.MF"), started, finished));
+        transformers.add(new LatchedTransformer("xml", new PathScope().prefix("org/codehaus/plexus/util/xml/"), started, finished));
+        transformers.add(new LatchedTransformer("util", new PathScope().prefix("org/codehaus/plexus/util/"), null, finished));
+
+        Set sources = new LinkedHashSet();
+        sources.add(new File("src/test/jars/plexus-utils-1.4.1.jar"));
+        File uberJar = new File(base, "testTransformersWithDisjointScopesRunConcurrently.jar");
+        createUberizer().uberize(workDir, sources, uberJar, new ArrayList(), transformers);
+
+        assertEquals(3, finished.size());
+        // It overlaps with the second one so it runs after it.
+        assertTrue(finished.toString(), finished.indexOf("xml") < finished.indexOf("util"));
+    }
+
+    static class LatchedTransformer implements ConcurrentTransformer {
+        final String name;
+        final PathScope scope;
+        final CountDownLatch started;
+        final List<String> finished;
+
+        LatchedTransformer(String name, PathScope scope, CountDownLatch started, List<String> finished) {
+            this.name = name;
+            this.scope = scope;
+            this.started = started;
+            this.finished = finished;
+        }
+
+        public PathScope getScope() {
+            return scope;
+        }
+
+        public void process(Uberizer uberizer, File workDir, TreeMap<String, UberEntry> uberEntries) throws IOException {
+            for (String path : uberEntries.keySet()) {
+                assertTrue(path, scope.contains(path));
+            }
+            if( started!=null ) {
+                started.countDown();
+                try {
+                    assertTrue(name, started.await(30, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+            }
+            finished.add(name);
+        }
+    }
+
+    public void testClassRelocationsAreUpdatedBeforeTheyAreRead() throws Exception {
+        // The readers only finish once they both are running.
+        CountDownLatch started = new CountDownLatch(2);
+        List<String> finished = Collections.synchronizedList(new ArrayList<String>());
+        List transformers = new ArrayList();
+        transformers.add(new RelocationsTransformer("writer", new PathScope().prefix("org/codehaus/plexus/util/xml/"), null, finished, true));
+        transformers.add(new RelocationsTransformer("reader-1", new PathScope().prefix("org/codehaus/plexus/util/cli/"), started, finished, false));
+        transformers.add(new RelocationsTransformer("reader-2", new PathScope().path("META-INF/MANIFEST.MF"), started, finished, false));
+
+        Set sources = new LinkedHashSet();
+        sources.add(new File("src/test/jars/plexus-utils-1.4.1.jar"));
+        File uberJar = new File(base, "testClassRelocationsAreUpdatedBeforeTheyAreRead.jar");
+        createUberizer().uberize(workDir, sources, uberJar, new ArrayList(), transformers);
+
+        assertEquals(3, finished.size());
+        // The readers don't overlap with the writer's scope, but still wait for it.
+        assertEquals("writer", finished.get(0));
+    }
+
+    static class RelocationsTransformer extends LatchedTransformer implements ClassRelocationsTransformer {
+        final boolean updates;
+
+        RelocationsTransformer(String name, PathScope scope, CountDownLatch started, List<String> finished, boolean updates) {
+            super(name, scope, started, finished);
+            this.updates = updates;
+        }
+
+        public boolean updatesClassRelocations() {
+            return updates;
+        }
+
+        public void process(Uberizer uberizer, File workDir, TreeMap<String, UberEntry> uberEntries) throws IOException {
+            if( updates ) {
+                try {
+                    // Give readers which don't wait a chance to run first.
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+                uberizer.getClassRelocations().put("a/A", "b/A");
+            } else {
+                assertEquals(name, "b/A", uberizer.getClassRelocations().get("a/A"));
+            }
+            super.process(uberizer, workDir, uberEntries);
+        }
+    }
+
+    public void testStatsCoverEachStage() throws Exception {
+        DefaultUberizer uberizer = createUberizer();
+        Set sources = new LinkedHashSet();
+        sources.add(new File("src/test/jars/test-project-1.0-SNAPSHOT.jar"));
+        sources.add(new File("src/test/jars/plexus-utils-1.4.1.jar"));
+        List transformers = new ArrayList();
+        transformers.add(new PlexusComponents());
+        File uberJar = new File(base, "testStatsCoverEachStage.jar");
+        uberizer.uberize(workDir, sources, uberJar, new ArrayList(), transformers);
+
+        List<UberizeStats.Stage> stages = uberizer.getStats().getStages();
+        assertEquals(4, stages.size());
+        UberizeStats.Stage extract = stages.get(0);
+        assertEquals("extract jars", extract.getName());
+        assertTrue(extract.getEntries() > 0);
+        assertTrue(extract.getBytesWritten() > 0);
+        assertEquals(extract.getBytesWritten(), extract.getWorkDirSize());
+        // The entries were read and extracted uncompressed.
+        assertEquals(extract.getBytesWritten(), extract.getBytesRead());
+        assertEquals("transformer-0: PlexusComponents", stages.get(1).getName());
+        UberizeStats.Stage pick = stages.get(2);
+        // Both jars have a manifest.
+        assertTrue(pick.getDuplicates() > 0);
+        UberizeStats.Stage write = stages.get(3);
+        assertEquals(uberJar.length(), write.getBytesWritten());
+        assertTrue(write.getWorkDirSize() >= extract.getWorkDirSize());
+
+        File json = new File(base, "testStatsCoverEachStage.json");
+        uberizer.getStats().write(json);
+        String content = FileUtils.fileRead(json);
+        assertTrue(content.contains("\"name\": \"write uber jar\""));
+        assertEquals(5, uberizer.getStats().toTable().size());
+    }
+
+    public void testIncrementalRunReusesUnchangedInputs() throws Exception {
+        File incrementalDir = new File(base, "uber-incremental");
+        FileUtils.deleteDirectory(incrementalDir);
+
+        File source = new File(base, "incremental-plexus-utils.jar");
+        FileUtils.copyFile(new File("src/test/jars/plexus-utils-1.4.1.jar"), source);
+        Set sources = new LinkedHashSet();
+        sources.add(source);
+
+        File uberJar = new File(base, "testIncrementalRunReusesUnchangedInputs.jar");
+        incrementalUberize(incrementalDir, sources, uberJar);
+
+        File extracted = new File(incrementalDir, "incremental-plexus-utils.jar/org/codehaus/plexus/util/FileUtils.class");
+        File relocated = new File(incrementalDir, "transformer-0/hidden/org/codehaus/plexus/util/xml/Xpp3Dom.class");
+        assertTrue(extracted.isFile());
+        assertTrue(relocated.isFile());
+        extracted.setLastModified(1000000000000L);
+        long relocatedModified = relocated.lastModified();
+        Thread.sleep(1100);
+
+        // Nothing changed so both files get reused.
+        incrementalUberize(incrementalDir, sources, uberJar);
+        assertEquals(1000000000000L, extracted.lastModified());
+        assertEquals(relocatedModified, relocated.lastModified());
+
+        // Once the jar changes, they get generated again.
+        FileUtils.fileAppend(source.getPath(), " ");
+        incrementalUberize(incrementalDir, sources, uberJar);
+        assertFalse(1000000000000L == extracted.lastModified());
+        assertFalse(relocatedModified == relocated.lastModified());
+
+        JarFile jar = new JarFile(uberJar);
+        try {
+            assertNotNull(jar.getEntry("hidden/org/codehaus/plexus/util/xml/Xpp3Dom.class"));
+            assertNotNull(jar.getEntry("org/codehaus/plexus/util/FileUtils.class"));
+        } finally {
+            jar.close();
+        }
+    }
+
+    public void testShaderWithRelocationCache() throws Exception {
+        File cacheDir = new File(base, "relocation-cache");
+        FileUtils.deleteDirectory(cacheDir);
+
+        Set sources = new LinkedHashSet();
+        sources.add(new File("src/test/jars/test-artifact-1.0-SNAPSHOT.jar"));
+
+        File[] uberJars = new File[]{
+            new File(base, "testShaderWithRelocationCache-1.jar"),
+            new File(base, "testShaderWithRelocationCache-2.jar")};
+        for (File uberJar : uberJars) {
+            ClassShader shader = new ClassShader();
+            shader.relocations = new PackageRelocation[]{
+                new PackageRelocation("org.fusesource.mvnplugins.uberize", null, null)
+            };
+            shader.cacheDirectory = cacheDir;
+            List transformers = new ArrayList();
+            transformers.add(shader);
+            createUberizer().uberize(workDir, sources, uberJar, new ArrayList(), transformers);
+            assertFalse(FileUtils.getFiles(cacheDir, "**/*.class", null).isEmpty());
+        }
+
+        JarFile first = new JarFile(uberJars[0]);
+        JarFile second = new JarFile(uberJars[1]);
+        try {
+            String path = "hidden/org/fusesource/mvnplugins/uberize/Lib.class";
+            assertTrue(IOUtil.contentEquals(first.getInputStream(first.getEntry(path)), second.getInputStream(second.getEntry(path))));
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+
+    public void testGeneratedSourcesAreTracedToTheirJar() throws Exception {
+        final File jar = new File("src/test/jars/test-artifact-1.0-SNAPSHOT.jar");
+        Set sources = new LinkedHashSet();
+        sources.add(jar);
+
+        List transformers = new ArrayList();
+        ClassShader shader = new ClassShader();
+        shader.relocations = new PackageRelocation[]{
+            new PackageRelocation("org.fusesource.mvnplugins.uberize", null, null)
+        };
+        transformers.add(shader);
+        final ArrayList<String> checked = new ArrayList<String>();
+        transformers.add(new Transformer() {
+            public void process(Uberizer uberizer, File workDir, TreeMap<String, UberEntry> tree) throws IOException {
+                for (UberEntry entry : tree.values()) {
+                    File source = entry.getSources().get(0);
+                    assertEquals(entry.getPath(), jar, uberizer.getOriginalJar(source));
+                    if( entry.getPath().startsWith("hidden/") ) {
+                        assertFalse(source instanceof JarEntrySource);
+                        checked.add(entry.getPath());
+                    }
+                }
+            }
+        });
+
+        createUberizer().uberize(workDir, sources, new File(base, "testGeneratedSourcesAreTracedToTheirJar.jar"), new ArrayList(), transformers);
+        assertFalse(checked.isEmpty());
+    }
+
+    public void testReportListsTheProvenanceOfTheEntries() throws Exception {
+        File jar = new File("src/test/jars/test-artifact-1.0-SNAPSHOT.jar");
+        File copy = new File(base, "test-artifact-copy.jar");
+        FileUtils.copyFile(jar, copy);
+        Set sources = new LinkedHashSet();
+        sources.add(jar);
+        sources.add(copy);
+
+        List transformers = new ArrayList();
+        ClassShader shader = new ClassShader();
+        shader.relocations = new PackageRelocation[]{
+            new PackageRelocation("org.fusesource.mvnplugins.uberize", null, null)
+        };
+        transformers.add(shader);
+
+        File uberJar = new File(base, "testReport.jar");
+        DefaultUberizer uberizer = createUberizer();
+        uberizer.uberize(workDir, sources, uberJar, new ArrayList(), transformers);
+        assertFalse(new File(workDir, "testReport.jar-report.json").exists());
+
+        uberizer.setReport(true);
+        uberizer.uberize(workDir, sources, uberJar, new ArrayList(), transformers);
+
+        String report = FileUtils.fileRead(new File(workDir, "testReport.jar-report.json"), "UTF-8");
+        assertTrue(report.contains("{\"path\": \"hidden/org/fusesource/mvnplugins/uberize/Lib.class\", \"source\": \""
+                + jar.getPath() + "\", \"transformers\": [\"" + ClassShader.class.getName() + "\"], "
+                + "\"duplicates\": [{\"source\": \"" + copy.getPath() + "\", \"identical\": true}]}"));
+        assertTrue(FileUtils.fileRead(new File(workDir, "jar-mapping.txt")).contains("=" + copy.getPath() + "\n"));
+    }
+
+    private void incrementalUberize(File workDir, Set sources, File uberJar) throws Exception {
+        DefaultUberizer uberizer = createUberizer();
+        uberizer.setIncremental(true);
+
+        ClassShader shader = new ClassShader();
+        shader.relocations = new PackageRelocation[]{
+            new PackageRelocation("org/codehaus/plexus/util/xml", null, null)
+        };
+        List transformers = new ArrayList();
+        transformers.add(shader);
+
+        uberizer.uberize(workDir, sources, uberJar, new ArrayList(), transformers);
+    }
+
+    private File relocateWithThreads(int threads, File uberJar) throws Exception {
+        DefaultUberizer uberizer = createUberizer();
+        uberizer.setThreads(threads);
+        return relocate(uberizer, uberJar);
+    }
+
+    private File relocate(DefaultUberizer uberizer, File uberJar) throws Exception {
+        Set sources = new LinkedHashSet();
+        sources.add(new File("src/test/jars/plexus-utils-1.4.1.jar"));
+        sources.add(new File("src/test/jars/test-project-1.0-SNAPSHOT.jar"));
+
+        ClassShader shader = new ClassShader();
+        shader.relocations = new PackageRelocation[]{
+            new PackageRelocation("org/codehaus/plexus/util/xml", null, null)
+        };
+        List transformers = new ArrayList();
+        transformers.add(new PlexusComponents());
+        transformers.add(new ServicesAppender());
+        transformers.add(shader);
+
+        uberizer.uberize(workDir, sources, uberJar, new ArrayList(), transformers);
+        return uberJar;
+    }
+
     private DefaultUberizer createUberizer() {
         final DefaultUberizer rc = new DefaultUberizer();
         rc.enableLogging(new ConsoleLogger(Logger.LEVEL_INFO, "uberizer"));
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.fusesource.mvnplugins.uberize;
+
+import junit.framework.TestCase;
+
+/**
+ * Test for PathScope.
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+public class PathScopeTest extends TestCase {
+
+    public void testOverlaps() {
+        PathScope services = new PathScope().prefix("META-INF/services/");
+        PathScope components = new PathScope().path("META-INF/plexus/components.xml");
+        PathScope manifest = new PathScope().path("META-INF/MANIFEST.MF");
+        PathScope license = new PathScope().pathIgnoringCase("META-INF/LICENSE").pathIgnoringCase("META-INF/LICENSE.txt");
+        PathScope classes = new PathScope().extension(".class");
+
+        assertFalse(services.overlaps(components));
+        assertFalse(components.overlaps(manifest));
+        assertFalse(manifest.overlaps(license));
+        assertFalse(license.overlaps(services));
+        assertFalse(classes.overlaps(components));
+        assertFalse(classes.overlaps(license));
+
+        assertTrue(services.overlaps(services));
+        assertTrue(services.overlaps(new PathScope().prefix("META-INF/")));
+        assertTrue(new PathScope().prefix("META-INF/").overlaps(components));
+        assertTrue(components.overlaps(new PathScope().extension(".xml")));
+        assertTrue(license.overlaps(new PathScope().path("meta-inf/license.TXT")));
+        assertTrue(license.overlaps(new PathScope().prefix("META-INF/")));
+        assertTrue(license.overlaps(new PathScope().extension(".txt")));
+        // Any path under a prefix could have the extension.
+        assertTrue(classes.overlaps(services));
+    }
+
+}
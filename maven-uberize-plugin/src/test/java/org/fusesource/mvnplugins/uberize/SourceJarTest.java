@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.fusesource.mvnplugins.uberize;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipException;
+
+import junit.framework.TestCase;
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Test for SourceJar.
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+public class SourceJarTest extends TestCase {
+
+    public void testMappedEntriesMatchTheJarFile() throws Exception {
+        File file = new File("src/test/jars/plexus-utils-1.4.1.jar");
+        SourceJar jar = new SourceJar(file, "test", new File("target/source-jar-test"));
+        JarFile jarFile = new JarFile(file);
+        try {
+            CentralDirectory centralDirectory = jar.getCentralDirectory();
+            assertNotNull(centralDirectory);
+            int count = 0;
+            for (Enumeration e = jarFile.entries(); e.hasMoreElements();) {
+                JarEntry entry = (JarEntry) e.nextElement();
+                assertEquals(entry.getName(), centralDirectory.getRecords().get(count++).name);
+                if( entry.isDirectory() ) {
+                    continue;
+                }
+                InputStream is = jarFile.getInputStream(entry);
+                byte[] expected = IOUtil.toByteArray(is);
+                is.close();
+
+                JarEntrySource source = new JarEntrySource(jar, entry.getName());
+                assertTrue(entry.getName(), Arrays.equals(expected, source.readBytes()));
+                is = source.openStream();
+                assertTrue(entry.getName(), Arrays.equals(expected, IOUtil.toByteArray(is)));
+                is.close();
+            }
+            assertEquals(count, centralDirectory.getRecords().size());
+        } finally {
+            jarFile.close();
+            jar.close();
+        }
+    }
+
+    public void testMappingIsKeptWhenTheJarFileIsClosed() throws Exception {
+        File file = new File("src/test/jars/plexus-utils-1.4.1.jar");
+        SourceJar jar = new SourceJar(file, "test", new File("target/source-jar-test"));
+        try {
+            CentralDirectory centralDirectory = jar.getCentralDirectory();
+            JarFile jarFile = jar.getJarFile();
+            jar.closeJarFile();
+            assertSame(centralDirectory, jar.getCentralDirectory());
+            assertTrue(jarFile != jar.getJarFile());
+        } finally {
+            jar.close();
+        }
+    }
+
+    public void testCorruptEntryFailsTheCrcCheck() throws Exception {
+        File file = new File("target/source-jar-test/corrupt.jar");
+        file.getParentFile().mkdirs();
+        byte[] data = "some stored data".getBytes("UTF-8");
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        JarOutputStream os = new JarOutputStream(new FileOutputStream(file));
+        JarEntry entry = new JarEntry("data.txt");
+        entry.setMethod(JarEntry.STORED);
+        entry.setSize(data.length);
+        entry.setCrc(crc.getValue());
+        os.putNextEntry(entry);
+        os.write(data);
+        os.close();
+
+        // Flip the first byte of the stored data which follows the local file header.
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.seek(26);
+            int nameLength = raf.read() | raf.read() << 8;
+            int extraLength = raf.read() | raf.read() << 8;
+            long offset = 30 + nameLength + extraLength;
+            raf.seek(offset);
+            int b = raf.read();
+            raf.seek(offset);
+            raf.write(b ^ 0xFF);
+        } finally {
+            raf.close();
+        }
+
+        SourceJar jar = new SourceJar(file, "test", new File("target/source-jar-test"));
+        try {
+            new JarEntrySource(jar, "data.txt").readBytes();
+            fail("Expected a ZipException");
+        } catch (ZipException expected) {
+        } finally {
+            jar.close();
+        }
+    }
+
+}
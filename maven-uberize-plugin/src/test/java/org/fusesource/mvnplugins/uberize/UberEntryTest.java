@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.fusesource.mvnplugins.uberize;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+import junit.framework.TestCase;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+
+/**
+ * Test for UberEntry.
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+public class UberEntryTest extends TestCase {
+
+    public void testPreviousVersions() {
+        UberEntry original = new UberEntry("a.txt");
+        assertNull(original.getPrevious());
+        assertNull(original.getAllPrevious());
+
+        UberEntry update = new UberEntry(original);
+        assertEquals("a.txt", update.getPath());
+        assertSame(original, update.getPrevious());
+        assertEquals(Arrays.asList(new UberEntry[]{original}), update.getAllPrevious());
+
+        UberEntry other = new UberEntry("b.txt");
+        List<UberEntry> previous = Arrays.asList(new UberEntry[]{original, other});
+        UberEntry merged = new UberEntry("c.txt", previous);
+        assertSame(original, merged.getPrevious());
+        assertEquals(previous, merged.getAllPrevious());
+
+        assertNull(new UberEntry("d.txt", new ArrayList<UberEntry>()).getPrevious());
+    }
+
+    public void testEntriesOfSeveralJarsShareTheirPath() throws IOException {
+        final ArrayList<UberEntry> manifests = new ArrayList<UberEntry>();
+        List transformers = new ArrayList();
+        transformers.add(new Transformer() {
+            public void process(Uberizer uberizer, File workDir, TreeMap<String, UberEntry> uberEntries) {
+                manifests.add(uberEntries.get("META-INF/MANIFEST.MF"));
+            }
+        });
+
+        Set sources = new LinkedHashSet();
+        sources.add(new File("src/test/jars/test-project-1.0-SNAPSHOT.jar"));
+        sources.add(new File("src/test/jars/plexus-utils-1.4.1.jar"));
+        DefaultUberizer uberizer = new DefaultUberizer();
+        uberizer.enableLogging(new ConsoleLogger(Logger.LEVEL_INFO, "uberizer"));
+        uberizer.setThreads(2);
+        uberizer.setStreaming(true);
+        uberizer.uberize(new File("target/uber-entry-test"), sources, new File("target/uber-entry-test.jar"),
+                new ArrayList(), transformers);
+
+        UberEntry manifest = manifests.get(0);
+        List<File> manifestSources = manifest.getSources();
+        assertEquals(2, manifestSources.size());
+        String first = ((JarEntrySource) manifestSources.get(0)).getEntryName();
+        String second = ((JarEntrySource) manifestSources.get(1)).getEntryName();
+        assertEquals("META-INF/MANIFEST.MF", first);
+        assertSame(first, second);
+    }
+
+}
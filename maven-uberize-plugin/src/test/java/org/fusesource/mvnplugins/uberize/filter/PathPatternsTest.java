@@ -0,0 +1,68 @@
+package org.fusesource.mvnplugins.uberize.filter;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import junit.framework.TestCase;
+
+import org.codehaus.plexus.util.SelectorUtils;
+
+/**
+ * Test for {@link PathPatterns}.
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+public class PathPatternsTest
+    extends TestCase
+{
+
+    private static final String[] PATTERNS = {
+        "**", "*", "META-INF/*", "META-INF/**", "META-INF/services/**", "META-INF/*.SF",
+        "org/codehaus/plexus/util/xml/Xpp3Dom", "org/codehaus/plexus/util/xml/pull.*",
+        "org/**/Foo.class", "**/*.class", "**/pull/**", "org/?oo/**", "a/**/b/**/c", "a/b/c", "",
+        "/absolute/**", "**/test*/**/*Test?.class", "meta-inf/MANIFEST.MF" };
+
+    private static final String[] PATHS = {
+        "", "a", "a/b/c", "a/x/b/y/c", "a/b/b/c", "a//b/c", "a/b/c/", "META-INF", "META-INF/",
+        "META-INF/MANIFEST.MF", "META-INF/FOO.SF", "META-INF/services/javax.script.ScriptEngineFactory",
+        "org/codehaus/plexus/util/xml/Xpp3Dom", "org/codehaus/plexus/util/xml/pull.Foo",
+        "org/codehaus/plexus/util/xml/pull/XmlPullParser.class", "org/Foo.class", "org/boo/Foo.class",
+        "org/foo/bar/Foo.class", "/absolute/Foo.class", "absolute/Foo.class",
+        "src/test/java/FooTest1.class", "src/testing/FooTestX.class", "src/test/FooTest.class" };
+
+    public void testMatchesLikeSelectorUtils()
+    {
+        for ( int i = 0; i < PATTERNS.length; i++ )
+        {
+            PathPatterns sensitive = new PathPatterns( Collections.singleton( PATTERNS[i] ), true );
+            PathPatterns insensitive = new PathPatterns( Collections.singleton( PATTERNS[i] ), false );
+            for ( int j = 0; j < PATHS.length; j++ )
+            {
+                String message = "'" + PATTERNS[i] + "' against '" + PATHS[j] + "'";
+                assertEquals( message, SelectorUtils.matchPath( PATTERNS[i], PATHS[j], true ), sensitive.matches( PATHS[j] ) );
+                assertEquals( message, SelectorUtils.matchPath( PATTERNS[i], PATHS[j], false ), insensitive.matches( PATHS[j] ) );
+            }
+        }
+    }
+
+    public void testMatchesAnyPattern()
+    {
+        PathPatterns patterns = new PathPatterns( Arrays.asList( PATTERNS ), true );
+        for ( int j = 0; j < PATHS.length; j++ )
+        {
+            boolean expected = false;
+            for ( int i = 0; i < PATTERNS.length; i++ )
+            {
+                expected |= SelectorUtils.matchPath( PATTERNS[i], PATHS[j], true );
+            }
+            assertEquals( PATHS[j], expected, patterns.matches( PATHS[j] ) );
+        }
+    }
+
+    public void testEmpty()
+    {
+        assertTrue( new PathPatterns( null, true ).isEmpty() );
+        assertFalse( new PathPatterns( null, true ).matches( "a" ) );
+    }
+
+}
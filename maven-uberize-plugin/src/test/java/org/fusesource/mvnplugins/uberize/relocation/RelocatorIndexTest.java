@@ -0,0 +1,65 @@
+package org.fusesource.mvnplugins.uberize.relocation;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import junit.framework.TestCase;
+
+/**
+ * Test for {@link RelocatorIndex}.
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+public class RelocatorIndexTest
+    extends TestCase
+{
+
+    private RelocatorIndex index()
+    {
+        return new RelocatorIndex( Arrays.asList( new Relocator[] {
+            new SimpleRelocator( "org.foo.bar", "first", null ),
+            new SimpleRelocator( "org.foo", "second", Arrays.asList( new String[] { "org.foo.Excluded" } ) ),
+            new SimpleRelocator( "org", "third", null ) } ) );
+    }
+
+    public void testFirstRelocatorWins()
+    {
+        RelocatorIndex index = index();
+        assertEquals( "first/Class", index.relocatePath( "org/foo/bar/Class" ) );
+        assertEquals( "second/Class", index.relocatePath( "org/foo/Class" ) );
+        assertEquals( "second/baz/Class", index.relocatePath( "org/foo/baz/Class" ) );
+        assertEquals( "third/Class", index.relocatePath( "org/Class" ) );
+        assertEquals( "com/foo/Class", index.relocatePath( "com/foo/Class" ) );
+
+        assertEquals( "first.Class", index.relocateClass( "org.foo.bar.Class" ) );
+        assertEquals( "second.Class", index.relocateClass( "org.foo.Class" ) );
+        assertEquals( "com.foo.Class", index.relocateClass( "com.foo.Class" ) );
+        assertEquals( "org/foo/Class", index.relocateClass( "org/foo/Class" ) );
+
+        // The later relocators still get a chance when the earlier ones are excluded.
+        assertEquals( "third/foo/Excluded", index.relocatePath( "org/foo/Excluded" ) );
+        assertEquals( "third.foo.Excluded", index.relocateClass( "org.foo.Excluded" ) );
+    }
+
+    public void testRelocateValue()
+    {
+        RelocatorIndex index = index();
+        assertEquals( "first.Class", index.relocateValue( "org.foo.bar.Class" ) );
+        assertEquals( "second/Class", index.relocateValue( "org/foo/Class" ) );
+        assertEquals( "[[Lfirst/Class;", index.relocateValue( "[[Lorg/foo/bar/Class;" ) );
+        assertEquals( "[Lsecond.Class;", index.relocateValue( "[Lorg.foo.Class;" ) );
+        assertEquals( "[Lthird/Class;", index.relocateValue( "[Lorg/Class;" ) );
+        assertEquals( "[Lcom/foo/Class;", index.relocateValue( "[Lcom/foo/Class;" ) );
+        assertEquals( "[I", index.relocateValue( "[I" ) );
+        assertEquals( "", index.relocateValue( "" ) );
+        assertEquals( "some text", index.relocateValue( "some text" ) );
+    }
+
+    public void testEmpty()
+    {
+        RelocatorIndex index = new RelocatorIndex( Collections.<Relocator>emptyList() );
+        assertTrue( index.isEmpty() );
+        assertEquals( "org/foo/Class", index.relocatePath( "org/foo/Class" ) );
+    }
+
+}
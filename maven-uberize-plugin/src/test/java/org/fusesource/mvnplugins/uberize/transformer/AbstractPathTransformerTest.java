@@ -26,6 +26,7 @@ import java.io.File;
 import java.io.IOException;
 
 import junit.framework.TestCase;
+import org.fusesource.mvnplugins.uberize.PathScope;
 import org.fusesource.mvnplugins.uberize.UberEntry;
 import org.fusesource.mvnplugins.uberize.Uberizer;
 
@@ -68,6 +69,21 @@ public class AbstractPathTransformerTest extends TestCase {
         assertFalse(matches("META-INF/MANIFEST.MF"));
     }
 
+    public void testScopeContainsTheMatchingPaths() throws IOException {
+        this.transformer.includes = new HashSet();
+        this.transformer.includes.add("META-INF/services/**");
+        this.transformer.includes.add("META-INF/spring.handlers");
+
+        PathScope scope = transformer.getScope();
+        assertTrue(scope.contains("META-INF/services/javax.script.ScriptEngineFactory"));
+        assertTrue(scope.contains("META-INF/spring.handlers"));
+        assertFalse(scope.contains("META-INF/spring.schemas"));
+        assertFalse(scope.contains("org/Foo.class"));
+
+        this.transformer.includes.add("**/*.xml");
+        assertNull(transformer.getScope());
+    }
+
     private boolean matches(String path) throws IOException {
         transformer.matched = false;
         File work = new File("target");
@@ -0,0 +1,94 @@
+package org.fusesource.mvnplugins.uberize.transformer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+
+import junit.framework.TestCase;
+
+/**
+ * Test for ClassNameReplacer.
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+public class ClassNameReplacerTest
+    extends TestCase
+{
+
+    private ClassNameReplacer replacer()
+    {
+        LinkedHashMap<String, String> replacements = new LinkedHashMap<String, String>();
+        replacements.put( "test.Foo", "hidden.test.Foo" );
+        replacements.put( "test.Foo$Inner", "hidden.test.Foo$Inner" );
+        replacements.put( "org.acme.Bar", "shaded.Bar" );
+        replacements.put( "acme.Bar", "other.Bar" );
+        return new ClassNameReplacer( replacements );
+    }
+
+    public void testReplacesWholeClassNames()
+    {
+        ClassNameReplacer replacer = replacer();
+        assertEquals( "hidden.test.Foo", replacer.replace( "test.Foo" ) );
+        assertEquals( "<bean class=\"hidden.test.Foo\"/>", replacer.replace( "<bean class=\"test.Foo\"/>" ) );
+        assertEquals( "hidden.test.Foo$Inner", replacer.replace( "test.Foo$Inner" ) );
+        assertEquals( "shaded.Bar=other.Bar", replacer.replace( "org.acme.Bar=acme.Bar" ) );
+        assertEquals( "hidden.test.Foo hidden.test.Foo\nhidden.test.Foo",
+                      replacer.replace( "test.Foo test.Foo\ntest.Foo" ) );
+    }
+
+    public void testDoesNotReplacePartialClassNames()
+    {
+        ClassNameReplacer replacer = replacer();
+        String text = "com.myco.test.Foo test.Foo2 test.FooBar test.Foo.method _test.Foo test.Foo$Other";
+        assertSame( text, replacer.replace( text ) );
+        assertEquals( "x/hidden.test.Foo/y", replacer.replace( "x/test.Foo/y" ) );
+    }
+
+    public void testStreamsLargeTexts()
+        throws Exception
+    {
+        // Put class names across the boundaries of the chunks which get read.
+        StringBuilder text = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for ( int i = 0; text.length() < 50000; i++ )
+        {
+            String padding = "                    ".substring( i % 20 ) + "\n";
+            text.append( padding ).append( "test.Foo" ).append( padding ).append( "test.Foo2" );
+            expected.append( padding ).append( "hidden.test.Foo" ).append( padding ).append( "test.Foo2" );
+        }
+
+        StringWriter writer = new StringWriter();
+        assertTrue( replacer().replace( new StringReader( text.toString() ), writer ) );
+        assertEquals( expected.toString(), writer.toString() );
+
+        assertTrue( replacer().replace( new StringReader( text.toString() ), null ) );
+        assertFalse( replacer().replace( new StringReader( text.toString().replace( "test.", "x." ) ), null ) );
+    }
+
+    public void testNothingToReplace()
+    {
+        ClassNameReplacer replacer = new ClassNameReplacer( new LinkedHashMap<String, String>() );
+        assertEquals( "test.Foo", replacer.replace( "test.Foo" ) );
+        assertEquals( "", replacer().replace( "" ) );
+    }
+
+}
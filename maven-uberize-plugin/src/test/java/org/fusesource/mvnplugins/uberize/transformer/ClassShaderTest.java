@@ -0,0 +1,137 @@
+package org.fusesource.mvnplugins.uberize.transformer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import junit.framework.TestCase;
+
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.codehaus.plexus.util.IOUtil;
+import org.fusesource.mvnplugins.uberize.DefaultUberizer;
+import org.fusesource.mvnplugins.uberize.relocation.PackageRelocation;
+
+/**
+ * Test for {@link ClassShader}.
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+public class ClassShaderTest
+    extends TestCase
+{
+    File basedir = new File( "target/test-data/" + getClass().getName() );
+
+    public void testRelocatesTheSameWithAnyNumberOfThreads()
+        throws Exception
+    {
+        DefaultUberizer single = createUberizer( 1 );
+        File expected = relocate( single, "single" );
+        DefaultUberizer parallel = createUberizer( 8 );
+        File actual = relocate( parallel, "parallel" );
+
+        assertFalse( single.getClassRelocations().isEmpty() );
+        assertEquals( single.getClassRelocations(), parallel.getClassRelocations() );
+
+        JarFile expectedJar = new JarFile( expected );
+        JarFile actualJar = new JarFile( actual );
+        try
+        {
+            int classes = 0;
+            for ( Enumeration e = expectedJar.entries(); e.hasMoreElements(); )
+            {
+                JarEntry entry = (JarEntry) e.nextElement();
+                if ( !entry.getName().endsWith( ".class" ) )
+                {
+                    continue;
+                }
+                JarEntry other = actualJar.getJarEntry( entry.getName() );
+                assertNotNull( entry.getName(), other );
+                assertTrue( entry.getName(), IOUtil.contentEquals( expectedJar.getInputStream( entry ),
+                                                                   actualJar.getInputStream( other ) ) );
+                classes++;
+            }
+            assertTrue( classes > 0 );
+            assertNotNull( actualJar.getJarEntry( "hidden/org/codehaus/plexus/util/xml/Xpp3Dom.class" ) );
+        }
+        finally
+        {
+            expectedJar.close();
+            actualJar.close();
+        }
+    }
+
+    public void testMemoCountsAndStopsGrowingOnceFull()
+    {
+        ClassShader.Memo memo = new ClassShader.Memo( "names", 2 );
+        assertNull( memo.get( "a" ) );
+        memo.put( "a", "x/a" );
+        memo.put( "b", "x/b" );
+        memo.put( "c", "x/c" );
+        assertEquals( "x/a", memo.get( "a" ) );
+        assertEquals( "x/b", memo.get( "b" ) );
+        assertNull( memo.get( "c" ) );
+        assertEquals( 2, memo.hits.get() );
+        assertEquals( 2, memo.misses.get() );
+        assertEquals( 2, memo.values.size() );
+
+        // Putting a name again does not use up the room left.
+        memo = new ClassShader.Memo( "names", 2 );
+        memo.put( "a", "x/a" );
+        memo.put( "a", "x/a" );
+        memo.put( "b", "x/b" );
+        assertEquals( "x/b", memo.get( "b" ) );
+        assertEquals( 2, memo.values.size() );
+    }
+
+    private File relocate( DefaultUberizer uberizer, String name )
+        throws Exception
+    {
+        Set sources = new LinkedHashSet();
+        sources.add( new File( "src/test/jars/plexus-utils-1.4.1.jar" ) );
+
+        ClassShader shader = new ClassShader();
+        shader.relocations = new PackageRelocation[] {
+            new PackageRelocation( "org/codehaus/plexus/util/xml", null, null )
+        };
+        List transformers = new ArrayList();
+        transformers.add( shader );
+
+        File uberJar = new File( basedir, name + ".jar" );
+        uberizer.uberize( new File( basedir, name ), sources, uberJar, new ArrayList(), transformers );
+        return uberJar;
+    }
+
+    private DefaultUberizer createUberizer( int threads )
+    {
+        DefaultUberizer rc = new DefaultUberizer();
+        rc.enableLogging( new ConsoleLogger( Logger.LEVEL_INFO, "uberizer" ) );
+        rc.setThreads( threads );
+        return rc;
+    }
+
+}
@@ -0,0 +1,78 @@
+package org.fusesource.mvnplugins.uberize.transformer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.fusesource.mvnplugins.uberize.relocation.PackageRelocation;
+
+/**
+ * Test for {@link RelocationCache}.
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+public class RelocationCacheTest
+    extends TestCase
+{
+    File basedir = new File( "target/test-data/" + getClass().getName() );
+
+    public void testEvictsOnlyTheCachedClasses()
+        throws IOException
+    {
+        FileUtils.deleteDirectory( basedir );
+        File artifact = write( "repository/org/foo/foo/1.0/foo-1.0.jar" );
+        File other = write( "other/0123456789012345678901234567890123456789/ab/notes.txt" );
+
+        PackageRelocation[] relocations = new PackageRelocation[] { new PackageRelocation( "org.foo", null, null ) };
+        RelocationCache cache = new RelocationCache( basedir, 1, relocations );
+        byte[] original = "original".getBytes( "UTF-8" );
+        cache.put( original, "relocated".getBytes( "UTF-8" ) );
+        assertEquals( "relocated", new String( cache.get( original ), "UTF-8" ) );
+        File[] rules = new File( basedir, RelocationCache.DIRECTORY ).listFiles();
+        assertEquals( 1, rules.length );
+        File[] buckets = rules[0].listFiles();
+        assertEquals( 1, buckets.length );
+        File stale = File.createTempFile( "relocated", ".tmp", buckets[0] );
+        stale.setLastModified( System.currentTimeMillis() - 24 * 60 * 60 * 1000 );
+        File pending = File.createTempFile( "relocated", ".tmp", buckets[0] );
+
+        cache.evict();
+
+        assertNull( cache.get( original ) );
+        assertFalse( stale.exists() );
+        assertTrue( pending.exists() );
+        assertTrue( artifact.exists() );
+        assertTrue( other.exists() );
+    }
+
+    private File write( String path )
+        throws IOException
+    {
+        File file = new File( basedir, path );
+        file.getParentFile().mkdirs();
+        FileUtils.fileWrite( file.getPath(), path );
+        return file;
+    }
+
+}
@@ -0,0 +1,114 @@
+package org.fusesource.mvnplugins.uberize.transformer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.TreeMap;
+
+import junit.framework.TestCase;
+
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.codehaus.plexus.util.FileUtils;
+import org.fusesource.mvnplugins.uberize.DefaultUberizer;
+import org.fusesource.mvnplugins.uberize.UberEntry;
+
+/**
+ * Test for {@link ServicesAppender}.
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+public class ServicesAppenderTest
+    extends TestCase
+{
+    File basedir = new File( "target/test-data/" + getClass().getName() );
+
+    private static final String SERVICE = "META-INF/services/org.foo.Service";
+
+    public void testMergesTheProviders()
+        throws IOException
+    {
+        TreeMap<String, UberEntry> entries = new TreeMap<String, UberEntry>();
+        UberEntry entry = new UberEntry( SERVICE );
+        entry.getSources().add( write( "a", "# The providers\r\norg.foo.First\r\n\r\norg.foo.Second # the second one" ) );
+        entry.getSources().add( write( "b", "org.foo.Second\norg.foo.Third" ) );
+        entries.put( SERVICE, entry );
+
+        new ServicesAppender().process( null, new File( basedir, "work" ), entries );
+
+        assertEquals( "org.foo.First\norg.foo.Second\norg.foo.Third\n",
+                      FileUtils.fileRead( entries.get( SERVICE ).getSources().get( 0 ) ) );
+    }
+
+    public void testSingleSourceIsLeftAlone()
+        throws IOException
+    {
+        TreeMap<String, UberEntry> entries = new TreeMap<String, UberEntry>();
+        UberEntry entry = new UberEntry( SERVICE );
+        entry.getSources().add( write( "a", "org.foo.First" ) );
+        entries.put( SERVICE, entry );
+
+        new ServicesAppender().process( null, new File( basedir, "work" ), entries );
+
+        assertSame( entry, entries.get( SERVICE ) );
+    }
+
+    public void testAppliesTheClassRelocations()
+        throws IOException
+    {
+        DefaultUberizer uberizer = new DefaultUberizer();
+        uberizer.enableLogging( new ConsoleLogger( Logger.LEVEL_INFO, "uberizer" ) );
+        uberizer.getClassRelocations().put( "org.foo.Service", "shaded.org.foo.Service" );
+        uberizer.getClassRelocations().put( "org.foo.First", "shaded.org.foo.First" );
+
+        TreeMap<String, UberEntry> entries = new TreeMap<String, UberEntry>();
+        UberEntry entry = new UberEntry( SERVICE );
+        entry.getSources().add( write( "a", "org.foo.First" ) );
+        entries.put( SERVICE, entry );
+        String relocatedPath = "META-INF/services/shaded.org.foo.Service";
+        UberEntry relocated = new UberEntry( relocatedPath );
+        relocated.getSources().add( write( "b", "shaded.org.foo.First\nshaded.org.foo.Other\n" ) );
+        entries.put( relocatedPath, relocated );
+        String otherPath = "META-INF/services/org.bar.Service";
+        UberEntry other = new UberEntry( otherPath );
+        other.getSources().add( write( "c", "org.bar.Provider\n" ) );
+        entries.put( otherPath, other );
+
+        new ServicesAppender().process( uberizer, new File( basedir, "work" ), entries );
+
+        assertEquals( 2, entries.size() );
+        assertSame( other, entries.get( otherPath ) );
+        UberEntry merged = entries.get( relocatedPath );
+        assertEquals( 2, merged.getAllPrevious().size() );
+        assertEquals( "shaded.org.foo.First\nshaded.org.foo.Other\n",
+                      FileUtils.fileRead( merged.getSources().get( 0 ) ) );
+    }
+
+    private File write( String name, String content )
+        throws IOException
+    {
+        File file = new File( basedir, name );
+        file.getParentFile().mkdirs();
+        FileUtils.fileWrite( file.getPath(), content );
+        return file;
+    }
+
+}
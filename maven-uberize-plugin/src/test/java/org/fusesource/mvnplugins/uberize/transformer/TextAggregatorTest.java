@@ -0,0 +1,124 @@
+package org.fusesource.mvnplugins.uberize.transformer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+import org.fusesource.mvnplugins.uberize.UberEntry;
+
+/**
+ * Test for {@link TextAggregator}.
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+public class TextAggregatorTest
+    extends TestCase
+{
+    File basedir = new File( "target/test-data/" + getClass().getName() );
+
+    public void testNormalizesTheEndOfLines()
+        throws IOException
+    {
+        UberEntry entry = new UberEntry( "META-INF/spring.handlers" );
+        entry.getSources().add( write( "a", "first\r\nsecond".getBytes( "UTF-8" ) ) );
+        entry.getSources().add( write( "b", new byte[0] ) );
+        entry.getSources().add( write( "c", "third\n\r\n".getBytes( "UTF-8" ) ) );
+
+        TextAggregator aggregator = new TextAggregator();
+        aggregator.eol = "\r\n";
+        assertEquals( "first\r\nsecond\r\nthird\r\n\r\n", aggregate( aggregator, entry ) );
+    }
+
+    public void testStripsTheByteOrderMarks()
+        throws IOException
+    {
+        byte[] bom = new byte[] { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+        UberEntry entry = new UberEntry( "META-INF/spring.handlers" );
+        entry.getSources().add( write( "a", concat( bom, "first\n".getBytes( "UTF-8" ) ) ) );
+        entry.getSources().add( write( "b", concat( bom, "second".getBytes( "UTF-8" ) ) ) );
+        entry.getSources().add( write( "c", bom ) );
+
+        assertEquals( "first\nsecond\n", aggregate( new TextAggregator(), entry ) );
+
+        TextAggregator aggregator = new TextAggregator();
+        aggregator.stripBom = false;
+        assertEquals( "\uFEFFfirst\n\uFEFFsecond\n\uFEFF\n", aggregate( aggregator, entry ) );
+    }
+
+    public void testCopiesResourcesLargerThanTheBuffer()
+        throws IOException
+    {
+        StringBuilder expected = new StringBuilder();
+        StringBuilder content = new StringBuilder();
+        for ( int i = 0; i < 20000; i++ )
+        {
+            content.append( "line " ).append( i ).append( "\r\n" );
+            expected.append( "line " ).append( i ).append( "\n" );
+        }
+        UberEntry entry = new UberEntry( "META-INF/LICENSE.txt" );
+        entry.getSources().add( write( "a", content.toString().getBytes( "UTF-8" ) ) );
+        entry.getSources().add( write( "b", content.toString().getBytes( "UTF-8" ) ) );
+        expected.append( expected.toString() );
+
+        assertEquals( expected.toString(), aggregate( new TextAggregator(), entry ) );
+    }
+
+    private String aggregate( TextAggregator aggregator, UberEntry entry )
+        throws IOException
+    {
+        File target = new File( basedir, "target" );
+        UberEntry rc = aggregator.process( null, entry, target );
+        assertEquals( Arrays.asList( new File[] { target } ), rc.getSources() );
+        return FileUtils.fileRead( target, "UTF-8" );
+    }
+
+    private static byte[] concat( byte[] a, byte[] b )
+    {
+        byte[] rc = new byte[a.length + b.length];
+        System.arraycopy( a, 0, rc, 0, a.length );
+        System.arraycopy( b, 0, rc, a.length, b.length );
+        return rc;
+    }
+
+    private File write( String name, byte[] content )
+        throws IOException
+    {
+        File file = new File( basedir, name );
+        file.getParentFile().mkdirs();
+        FileOutputStream out = new FileOutputStream( file );
+        try
+        {
+            out.write( content );
+        }
+        finally
+        {
+            IOUtil.close( out );
+        }
+        return file;
+    }
+
+}
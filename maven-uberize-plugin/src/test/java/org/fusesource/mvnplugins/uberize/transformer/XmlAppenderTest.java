@@ -0,0 +1,105 @@
+package org.fusesource.mvnplugins.uberize.transformer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import junit.framework.TestCase;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.fusesource.mvnplugins.uberize.UberEntry;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Test for {@link XmlAppender}.
+ *
+ * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
+ */
+public class XmlAppenderTest
+    extends TestCase
+{
+    File basedir = new File( "target/test-data/" + getClass().getName() );
+
+    private static final String BEANS_NS = "http://example.org/beans";
+    private static final String EXTRA_NS = "http://example.org/extra";
+
+    private static final String FIRST =
+        "<?xml version=\"1.0\"?>\n<!-- The first beans -->\n"
+            + "<beans xmlns=\"" + BEANS_NS + "\" default-lazy-init=\"true\">\n"
+            + "  <bean id=\"a\"/>\n</beans>\n";
+
+    private static final String SECOND =
+        "<b:beans xmlns:b=\"" + BEANS_NS + "\" xmlns:x=\"" + EXTRA_NS + "\" "
+            + "default-lazy-init=\"false\" default-autowire=\"byName\">\n"
+            + "  <b:bean id=\"b\"><x:extra value=\"1\"/></b:bean>\n</b:beans>";
+
+    public void testStreamingMergesTheDocuments()
+        throws Exception
+    {
+        XmlAppender appender = new XmlAppender();
+        appender.streaming = true;
+        String merged = merge( appender );
+        assertTrue( merged, merged.indexOf( "<!-- The first beans -->" ) > 0 );
+
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware( true );
+        Document doc = factory.newDocumentBuilder().parse( new ByteArrayInputStream( merged.getBytes( "UTF-8" ) ) );
+        Element root = doc.getDocumentElement();
+        assertEquals( "beans", root.getLocalName() );
+        assertEquals( BEANS_NS, root.getNamespaceURI() );
+        assertEquals( "true", root.getAttribute( "default-lazy-init" ) );
+        assertEquals( "byName", root.getAttribute( "default-autowire" ) );
+
+        NodeList beans = root.getElementsByTagNameNS( BEANS_NS, "bean" );
+        assertEquals( 2, beans.getLength() );
+        assertEquals( "a", ( (Element) beans.item( 0 ) ).getAttribute( "id" ) );
+        assertEquals( "b", ( (Element) beans.item( 1 ) ).getAttribute( "id" ) );
+        NodeList extra = root.getElementsByTagNameNS( EXTRA_NS, "extra" );
+        assertEquals( merged, 1, extra.getLength() );
+        assertEquals( "1", ( (Element) extra.item( 0 ) ).getAttribute( "value" ) );
+    }
+
+    private String merge( XmlAppender appender )
+        throws IOException
+    {
+        UberEntry entry = new UberEntry( "META-INF/beans.xml" );
+        entry.getSources().add( write( "first.xml", FIRST ) );
+        entry.getSources().add( write( "second.xml", SECOND ) );
+        File target = new File( basedir, "merged.xml" );
+        appender.process( null, entry, target );
+        return FileUtils.fileRead( target, "UTF-8" );
+    }
+
+    private File write( String name, String content )
+        throws IOException
+    {
+        File file = new File( basedir, name );
+        file.getParentFile().mkdirs();
+        FileUtils.fileWrite( file.getPath(), "UTF-8", content );
+        return file;
+    }
+
+}